@@ -0,0 +1,67 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.language.v1.AnalyzeSentimentRequest;
+import com.google.cloud.language.v1.AnalyzeSentimentResponse;
+import com.google.cloud.language.v1.Document;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Scores messages with the Cloud Natural Language API. The client is created on first use and kept
+ * for as long as the instance runs, and every message in a batch is sent at once, so a batch costs
+ * about one round trip.
+ */
+final class CloudSentimentScorer implements SentimentScorer {
+
+  private LanguageServiceClient client;
+
+  @Override
+  public double[] score(List<String> messages) throws IOException {
+    LanguageServiceClient client = getClient();
+
+    List<ApiFuture<AnalyzeSentimentResponse>> responses = new ArrayList<>();
+    for (String message : messages) {
+      Document doc = Document.newBuilder().setContent(message).setType(Document.Type.PLAIN_TEXT).build();
+      AnalyzeSentimentRequest request = AnalyzeSentimentRequest.newBuilder().setDocument(doc).build();
+      responses.add(client.analyzeSentimentCallable().futureCall(request));
+    }
+
+    double[] scores = new double[messages.size()];
+    try {
+      for (int i = 0; i < scores.length; i++) {
+        scores[i] = responses.get(i).get().getDocumentSentiment().getScore();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while scoring sentiment", e);
+    } catch (ExecutionException e) {
+      throw new IOException("could not score sentiment", e.getCause());
+    }
+    return scores;
+  }
+
+  private synchronized LanguageServiceClient getClient() throws IOException {
+    if (client == null) {
+      client = LanguageServiceClient.create();
+    }
+    return client;
+  }
+}
@@ -0,0 +1,46 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/** Servlet that reports how well this instance's comment listing cache is doing. */
+@WebServlet("/comment-cache-stats")
+public class CommentCacheStatsServlet extends HttpServlet {
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    long hits = CommentListCache.getHitCount();
+    long misses = CommentListCache.getMissCount();
+
+    JsonObject stats = new JsonObject();
+    stats.addProperty("hits", hits);
+    stats.addProperty("misses", misses);
+    stats.addProperty("hitRate", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+    stats.addProperty("cachedPages", CommentListCache.getSize());
+    stats.addProperty("maxAgeSeconds", CommentListCache.MAX_AGE_SECONDS);
+    stats.addProperty("version",
+        CommentListCache.getVersion(DatastoreServiceFactory.getDatastoreService()));
+
+    response.setContentType("application/json;");
+    response.getWriter().println(stats);
+  }
+}
@@ -0,0 +1,124 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the JSON served by /list-comments, shared by every request to this instance.
+ *
+ * <p>Every write that changes the listing calls {@link #invalidate}, which stores a new version
+ * stamp in Datastore. Each cached page remembers the stamp it was built under and is only served
+ * while the stamp is unchanged, so a write on one instance invalidates the caches of all of them at
+ * the cost of one get by key per request.
+ *
+ * <p>Comment queries are eventually consistent, so a page built just after a write may still miss
+ * it. Pages therefore also expire {@value #MAX_AGE_SECONDS} seconds after they were built, which
+ * bounds how stale a listing can be.
+ */
+final class CommentListCache {
+
+  static final long MAX_AGE_SECONDS = 30;
+
+  private static final Key VERSION_KEY = KeyFactory.createKey("CommentListVersion", "current");
+  private static final int MAX_PAGES = 100;
+
+  private static final Cache<String, Page> pages = CacheBuilder.newBuilder()
+      .maximumSize(MAX_PAGES)
+      .expireAfterWrite(MAX_AGE_SECONDS, TimeUnit.SECONDS)
+      .build();
+
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong misses = new AtomicLong();
+
+  private CommentListCache() {}
+
+  /** A page of the listing as it was when built. */
+  static final class Page {
+    final String json;
+    final long version;
+    final long builtAtMillis;
+
+    Page(String json, long version) {
+      this.json = json;
+      this.version = version;
+      this.builtAtMillis = System.currentTimeMillis();
+    }
+
+    long getAgeSeconds() {
+      return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - builtAtMillis);
+    }
+  }
+
+  /** Returns the current version stamp of the listing. */
+  static long getVersion(DatastoreService datastore) {
+    try {
+      return (long) datastore.get(VERSION_KEY).getProperty("version");
+    } catch (EntityNotFoundException e) {
+      // Nothing has been written since the app was deployed.
+      return 0;
+    }
+  }
+
+  /** Returns the cached page for {@code key} if it was built under {@code version}, or null. */
+  static Page get(String key, long version) {
+    Page page = pages.getIfPresent(key);
+    if (page == null || page.version != version) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return page;
+  }
+
+  static Page put(String key, String json, long version) {
+    Page page = new Page(json, version);
+    pages.put(key, page);
+    return page;
+  }
+
+  /**
+   * Marks every cached page, on every instance, as out of date. Call after the write has been
+   * committed, so that no instance can cache the old listing under the new stamp.
+   */
+  static void invalidate(DatastoreService datastore) {
+    // Any new value will do, and a blind put can't conflict with a concurrent invalidation.
+    Entity version = new Entity(VERSION_KEY);
+    version.setProperty("version", ThreadLocalRandom.current().nextLong());
+    datastore.put(version);
+    pages.invalidateAll();
+  }
+
+  static long getHitCount() {
+    return hits.get();
+  }
+
+  static long getMissCount() {
+    return misses.get();
+  }
+
+  static long getSize() {
+    return pages.size();
+  }
+}
@@ -17,9 +17,6 @@ package com.google.sps.servlets;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
-import com.google.cloud.language.v1.Document;
-import com.google.cloud.language.v1.LanguageServiceClient;
-import com.google.cloud.language.v1.Sentiment;
 import com.google.common.base.Strings;
 import com.google.gson.Gson;
 import java.util.ArrayList;
@@ -43,8 +40,6 @@ public class DataServlet extends HttpServlet {
     String message = request.getParameter("message-input");
     long timestamp = System.currentTimeMillis();
 
-    double sentimentScore = getSentimentScore(message);
-
     // Error handling - don't allow empty or null values
     if (!Strings.isNullOrEmpty(name) && !Strings.isNullOrEmpty(email) && !Strings.isNullOrEmpty(subject) && !Strings.isNullOrEmpty(message)) {
       Entity commentEntity = new Entity("Comment");
@@ -53,22 +48,13 @@ public class DataServlet extends HttpServlet {
       commentEntity.setProperty("subject", subject);
       commentEntity.setProperty("message", message);
       commentEntity.setProperty("timestamp", timestamp);
-      commentEntity.setProperty("sentimentScore", sentimentScore);
 
+      // The sentiment score is added in the background; see SentimentPipeline.
       DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-      datastore.put(commentEntity);
+      SentimentPipeline.addPendingComment(datastore, commentEntity);
     }
 
     // Redirect back to the HTML page.
     response.sendRedirect("/index.html");
   }
-
-  private double getSentimentScore(String message) throws IOException {
-    Document doc = Document.newBuilder().setContent(message).setType(Document.Type.PLAIN_TEXT).build();
-	LanguageServiceClient languageService = LanguageServiceClient.create();
-    Sentiment sentiment = languageService.analyzeSentiment(doc).getDocumentSentiment();
-	double sentimentScore = (double) sentiment.getScore();
-    languageService.close();
-    return sentimentScore;
-  }
 }
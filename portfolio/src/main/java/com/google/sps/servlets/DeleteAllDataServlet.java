@@ -14,33 +14,136 @@
 
 package com.google.sps.servlets;
 
+import com.google.appengine.api.datastore.AsyncDatastoreService;
+import com.google.appengine.api.datastore.Cursor;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
 import com.google.appengine.api.datastore.Key;
-import com.google.appengine.api.datastore.KeyFactory;
-import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
-import com.google.appengine.api.datastore.Query.SortDirection;
-import com.google.common.collect.Iterables;
+import com.google.appengine.api.datastore.QueryResultList;
+import com.google.apphosting.api.ApiProxy;
+import com.google.gson.JsonObject;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-/** Servlet responsible for deleting all comments. */
+/**
+ * Servlet responsible for deleting all comments.
+ *
+ * <p>Comments are found with a keys-only query and deleted in batches, a few at a time. If the
+ * request is about to run out of time it stops and reports how far it got:
+ * {@code {"deleted": 1500, "done": false, "cursor": "..."}}. POST again with that cursor to carry
+ * on where it stopped, until done is true. If a batch fails, the request fails and can be retried
+ * without a cursor; comments already deleted are not found again.
+ */
 @WebServlet("/delete-all-comments")
 public class DeleteAllDataServlet extends HttpServlet {
 
+  // The most keys one delete call accepts.
+  private static final int BATCH_SIZE = 500;
+
+  // Batches being deleted at once.
+  private static final int MAX_IN_FLIGHT = 4;
+
+  // Stop starting batches when less than this much of the request deadline is left.
+  private static final long DEADLINE_MARGIN_MILLIS = 10_000;
+
+  // Deadline assumed when App Engine doesn't say how long the request has, e.g. on a plain servlet
+  // container. Matches the deadline of an App Engine request.
+  private static final long FALLBACK_DEADLINE_MILLIS = 60_000;
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Query query = new Query("Comment");
+    long fallbackDeadline = System.currentTimeMillis() + FALLBACK_DEADLINE_MILLIS;
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(BATCH_SIZE);
+    String cursor = request.getParameter("cursor");
+    if (cursor != null && !cursor.isEmpty()) {
+      try {
+        fetchOptions.startCursor(Cursor.fromWebSafeString(cursor));
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor: " + cursor);
+        return;
+      }
+    }
 
+    Query query = new Query("Comment").setKeysOnly();
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    PreparedQuery results = datastore.prepare(query);
+    AsyncDatastoreService asyncDatastore = DatastoreServiceFactory.getAsyncDatastoreService();
+
+    Queue<Future<Void>> inFlight = new ArrayDeque<>();
+    long deleted = 0;
+    boolean done = false;
+    while (hasTimeLeft(fallbackDeadline)) {
+      QueryResultList<Entity> batch = datastore.prepare(query).asQueryResultList(fetchOptions);
+      if (!batch.isEmpty()) {
+        List<Key> keys = new ArrayList<>(batch.size());
+        for (Entity entity : batch) {
+          keys.add(entity.getKey());
+        }
+        if (inFlight.size() == MAX_IN_FLIGHT) {
+          await(inFlight.remove());
+        }
+        inFlight.add(asyncDatastore.delete(keys));
+        deleted += keys.size();
+      }
+
+      if (batch.size() < BATCH_SIZE) {
+        done = true;
+        break;
+      }
+      fetchOptions.startCursor(batch.getCursor());
+    }
+
+    // Only report progress once every batch before the cursor is really gone.
+    while (!inFlight.isEmpty()) {
+      await(inFlight.remove());
+    }
+    if (deleted > 0) {
+      CommentListCache.invalidate(datastore);
+    }
+
+    JsonObject progress = new JsonObject();
+    progress.addProperty("deleted", deleted);
+    progress.addProperty("done", done);
+    // Without a cursor, ran out of time before the first batch; POST again from the start.
+    if (!done && fetchOptions.getStartCursor() != null) {
+      progress.addProperty("cursor", fetchOptions.getStartCursor().toWebSafeString());
+    }
+
+    response.setContentType("application/json;");
+    response.getWriter().println(progress);
+  }
+
+  /**
+   * Returns whether there is time to start another batch, going by {@code fallbackDeadline} if the
+   * request has no App Engine environment.
+   */
+  private static boolean hasTimeLeft(long fallbackDeadline) {
+    ApiProxy.Environment environment = ApiProxy.getCurrentEnvironment();
+    long remainingMillis = environment == null
+        ? fallbackDeadline - System.currentTimeMillis()
+        : environment.getRemainingMillis();
+    return remainingMillis > DEADLINE_MARGIN_MILLIS;
+  }
 
-    Iterable keysToDelete = Iterables.transform(results.asIterable(), Entity::getKey); 
-    datastore.delete(keysToDelete);
+  private static void await(Future<Void> delete) throws IOException {
+    try {
+      delete.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("interrupted while deleting comments", e);
+    } catch (ExecutionException e) {
+      throw new IOException("could not delete comments", e.getCause());
+    }
   }
-}
\ No newline at end of file
+}
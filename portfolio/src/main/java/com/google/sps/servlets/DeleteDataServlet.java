@@ -35,5 +35,6 @@ public class DeleteDataServlet extends HttpServlet {
     Key commentEntityKey = KeyFactory.createKey("Comment", id);
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
     datastore.delete(commentEntityKey);
+    CommentListCache.invalidate(datastore);
   }
 }
\ No newline at end of file
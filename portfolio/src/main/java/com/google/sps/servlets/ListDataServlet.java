@@ -14,6 +14,7 @@
 
 package com.google.sps.servlets;
 
+import com.google.appengine.api.datastore.Cursor;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
@@ -24,37 +25,114 @@ import com.google.appengine.api.datastore.Query.Filter;
 import com.google.appengine.api.datastore.Query.FilterOperator;
 import com.google.appengine.api.datastore.Query.FilterPredicate;
 import com.google.appengine.api.datastore.Query.SortDirection;
+import com.google.appengine.api.datastore.QueryResultIterator;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.google.sps.servlets.Comment;
 import com.google.sps.servlets.DataServlet;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.StringWriter;
+import java.io.Writer;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-/** Servlet responsible for listing comments. */
+/**
+ * Servlet responsible for listing comments, one page at a time, as
+ * {@code {"comments": [...], "nextPageToken": "..."}}. Pass the nextPageToken back as page-token to
+ * get the following page without reading the earlier ones again; the last page has none. A page
+ * holds num-comments comments, between 0 and 1000.
+ *
+ * <p>Pages are served from {@link CommentListCache} while no comment has changed. The X-Cache
+ * header says whether a response was a HIT or a MISS, and Age how many seconds old the page is.
+ * Pages too large to cache are a BYPASS, and are written out as they are read, so they take the
+ * same memory however many comments they hold.
+ */
 @WebServlet("/list-comments")
 public class ListDataServlet extends HttpServlet {
 
   // Only comments with sentiment score >= this value will be fetched and displayed.
   private static double COMMENT_FILTER_THRESHOLD = -0.5; 
 
+  // Pages hold at most this many comments, however many are asked for.
+  private static final int MAX_COMMENTS = 1000;
+
+  // Pages of up to this many comments are cached; see CommentListCache.
+  private static final int MAX_CACHED_COMMENTS = 100;
+
+  // Comments fetched from Datastore per round trip while streaming a page.
+  private static final int CHUNK_SIZE = 100;
+
+  private final Gson gson = new Gson();
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
     int numCommentsToDisplay = getNumberOfComments(request);
 
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(numCommentsToDisplay);
+    String pageToken = request.getParameter("page-token");
+    String startCursor = "";
+    if (pageToken != null && !pageToken.isEmpty()) {
+      Cursor cursor;
+      try {
+        cursor = Cursor.fromWebSafeString(pageToken);
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid page-token: " + pageToken);
+        return;
+      }
+      fetchOptions.startCursor(cursor);
+      // Spellings of the same cursor share one cache entry.
+      startCursor = cursor.toWebSafeString();
+    }
+
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    fetchOptions.chunkSize(CHUNK_SIZE).prefetchSize(CHUNK_SIZE);
+
+    // Large pages aren't worth holding in memory, so they are streamed straight to the response.
+    if (numCommentsToDisplay > MAX_CACHED_COMMENTS) {
+      response.setContentType("application/json;");
+      response.setHeader("X-Cache", "BYPASS");
+      writeComments(datastore, numCommentsToDisplay, fetchOptions, response.getWriter());
+      return;
+    }
+
+    String cacheKey = numCommentsToDisplay + ":" + COMMENT_FILTER_THRESHOLD + ":" + startCursor;
+    long version = CommentListCache.getVersion(datastore);
+
+    CommentListCache.Page page = CommentListCache.get(cacheKey, version);
+    response.setHeader("X-Cache", page == null ? "MISS" : "HIT");
+    if (page == null) {
+      StringWriter json = new StringWriter();
+      writeComments(datastore, numCommentsToDisplay, fetchOptions, json);
+      page = CommentListCache.put(cacheKey, json.toString(), version);
+    }
+
+    response.setContentType("application/json;");
+    response.setHeader("Age", Long.toString(page.getAgeSeconds()));
+    response.getWriter().println(page.json);
+  }
+
+  /**
+   * Writes one page of comments to {@code out}, one comment at a time as the query returns them.
+   */
+  private void writeComments(DatastoreService datastore, int numCommentsToDisplay,
+      FetchOptions fetchOptions, Writer out) throws IOException {
+    // Pending comments have no sentimentScore yet, so the filter leaves them out until they are
+    // scored.
     Filter niceComments = new FilterPredicate("sentimentScore", FilterOperator.GREATER_THAN_OR_EQUAL, COMMENT_FILTER_THRESHOLD);
     Query query = new Query("Comment").addSort("sentimentScore", SortDirection.DESCENDING);    
     query.setFilter(niceComments);
 
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    List<Entity> results = datastore.prepare(query).asList(FetchOptions.Builder.withLimit(numCommentsToDisplay));
+    QueryResultIterator<Entity> results = datastore.prepare(query).asQueryResultIterator(fetchOptions);
 
-    List<Comment> comments = new ArrayList<>();
-    for (Entity entity : results) {
+    JsonWriter json = gson.newJsonWriter(out);
+    json.beginObject();
+    json.name("comments");
+    json.beginArray();
+    int count = 0;
+    while (results.hasNext()) {
+      Entity entity = results.next();
       long id = entity.getKey().getId(); 
       String name = (String) entity.getProperty("name");
       String email = (String) entity.getProperty("email");
@@ -64,13 +142,17 @@ public class ListDataServlet extends HttpServlet {
       double sentimentScore = (double) entity.getProperty("sentimentScore");
 
       Comment comment = new Comment(id, name, email, subject, message, timestamp, sentimentScore);
-      comments.add(comment);
+      gson.toJson(comment, Comment.class, json);
+      count++;
     }
+    json.endArray();
 
-    Gson gson = new Gson();
-
-    response.setContentType("application/json;");
-    response.getWriter().println(gson.toJson(comments));
+    // A short page means there is nothing after it.
+    if (numCommentsToDisplay > 0 && count == numCommentsToDisplay) {
+      json.name("nextPageToken").value(results.getCursor().toWebSafeString());
+    }
+    json.endObject();
+    json.flush();
   }
 
   int getNumberOfComments(HttpServletRequest request) {
@@ -84,6 +166,6 @@ public class ListDataServlet extends HttpServlet {
       System.err.println("Could not convert to int: " + numCommentsString);
       numComments = 0; //default val
     }
-    return numComments;
+    return Math.max(0, Math.min(numComments, MAX_COMMENTS));
   }
 }
@@ -0,0 +1,230 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.datastore.TransactionOptions;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.TaskAlreadyExistsException;
+import com.google.appengine.api.taskqueue.TaskHandle;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores the sentiment of new comments in the background, so that submitting the contact form
+ * doesn't wait for the Natural Language API.
+ *
+ * <p>A new comment is stored as pending, without a sentiment score, together with a task on the
+ * {@value #PENDING_QUEUE} pull queue naming it. A push task to {@code /score-comments}, shared by
+ * every comment submitted within the same couple of seconds, then leases the pending tasks in
+ * batches, scores their comments in one go and writes the scores back.
+ *
+ * <p>If the push task is lost, e.g. because it could not be queued, a cron job sweeps up comments
+ * that have been pending for longer than {@link #STALE_MILLIS}, queues them again and schedules
+ * scoring.
+ *
+ * <p>The scorer is the Cloud Natural Language API unless the {@value #SCORER_PROPERTY} system
+ * property is {@code stub}, which scores locally with {@link StubSentimentScorer}.
+ */
+final class SentimentPipeline {
+
+  static final String PENDING_QUEUE = "sentiment";
+  static final String SCORER_PROPERTY = "sentiment.scorer";
+
+  // Set on comments that haven't been scored yet.
+  static final String PENDING_PROPERTY = "sentimentPending";
+
+  // Cross-group transactions can touch at most 25 entity groups, and each comment is its own.
+  static final int BATCH_SIZE = 25;
+
+  // Comments pending for longer than this are queued again by the sweep.
+  static final long STALE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  // A queue takes at most 100 tasks at once.
+  private static final int SWEEP_LIMIT = 100;
+
+  private static final String SCORE_URL = "/score-comments";
+  private static final long BATCH_WINDOW_MILLIS = 2000;
+  private static final long LEASE_SECONDS = 60;
+
+  private static final SentimentScorer scorer = createScorer();
+
+  private SentimentPipeline() {}
+
+  static SentimentScorer getScorer() {
+    return scorer;
+  }
+
+  /**
+   * Stores {@code comment} as pending and queues it to be scored. Either both happen or neither.
+   */
+  static void addPendingComment(DatastoreService datastore, Entity comment) {
+    comment.setProperty(PENDING_PROPERTY, true);
+
+    Transaction txn = datastore.beginTransaction();
+    try {
+      Key key = datastore.put(txn, comment);
+      TaskOptions task = TaskOptions.Builder.withMethod(TaskOptions.Method.PULL)
+          .payload(KeyFactory.keyToString(key));
+      QueueFactory.getQueue(PENDING_QUEUE).add(txn, task);
+      txn.commit();
+    } finally {
+      if (txn.isActive()) {
+        txn.rollback();
+      }
+    }
+
+    // The comment is saved either way; if scoring can't be scheduled now, the sweep picks it up.
+    try {
+      scheduleScoring();
+    } catch (RuntimeException e) {
+      System.err.println("Could not schedule scoring: " + e);
+    }
+  }
+
+  /**
+   * Queues every comment that has been pending since before {@code now - STALE_MILLIS} to be scored
+   * again, up to a limit, and schedules scoring. Returns how many comments were queued.
+   */
+  static int requeueStaleComments(DatastoreService datastore, long now) {
+    Query query = new Query("Comment")
+        .setFilter(new Query.FilterPredicate(PENDING_PROPERTY, Query.FilterOperator.EQUAL, true));
+    List<TaskOptions> tasks = new ArrayList<>();
+    FetchOptions options = FetchOptions.Builder.withLimit(SWEEP_LIMIT);
+    for (Entity comment : datastore.prepare(query).asIterable(options)) {
+      Object timestamp = comment.getProperty("timestamp");
+      if (timestamp instanceof Long && (Long) timestamp > now - STALE_MILLIS) {
+        continue;
+      }
+      // Scoring skips comments that are no longer pending, so queuing one twice does no harm.
+      tasks.add(TaskOptions.Builder.withMethod(TaskOptions.Method.PULL)
+          .payload(KeyFactory.keyToString(comment.getKey())));
+    }
+
+    if (!tasks.isEmpty()) {
+      QueueFactory.getQueue(PENDING_QUEUE).add(tasks);
+      scheduleScoring();
+    }
+    return tasks.size();
+  }
+
+  /**
+   * Makes sure comments will be scored shortly. Comments submitted within the same window share one
+   * task, so they are scored in one batch.
+   */
+  static void scheduleScoring() {
+    long window = System.currentTimeMillis() / BATCH_WINDOW_MILLIS;
+    TaskOptions task = TaskOptions.Builder.withUrl(SCORE_URL)
+        .taskName("score-comments-" + window)
+        .etaMillis((window + 1) * BATCH_WINDOW_MILLIS);
+    try {
+      QueueFactory.getDefaultQueue().add(task);
+    } catch (TaskAlreadyExistsException e) {
+      // Another comment in this window already scheduled it.
+    }
+  }
+
+  /**
+   * Scores up to {@link #BATCH_SIZE} pending comments. Returns how many pending tasks were
+   * handled, so callers know whether there may be more. If scoring fails, the tasks are released
+   * straight away so the next attempt can lease them again.
+   */
+  static int scorePendingBatch(DatastoreService datastore, SentimentScorer scorer) throws IOException {
+    Queue queue = QueueFactory.getQueue(PENDING_QUEUE);
+    List<TaskHandle> tasks = queue.leaseTasks(LEASE_SECONDS, TimeUnit.SECONDS, BATCH_SIZE);
+    if (tasks.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      scoreComments(datastore, scorer, tasks);
+    } catch (IOException | RuntimeException e) {
+      for (TaskHandle task : tasks) {
+        queue.modifyTaskLease(task, 0, TimeUnit.SECONDS);
+      }
+      throw e;
+    }
+    queue.deleteTask(tasks);
+    return tasks.size();
+  }
+
+  private static void scoreComments(
+      DatastoreService datastore, SentimentScorer scorer, List<TaskHandle> tasks) throws IOException {
+    List<Key> keys = new ArrayList<>();
+    for (TaskHandle task : tasks) {
+      keys.add(KeyFactory.stringToKey(new String(task.getPayload(), StandardCharsets.UTF_8)));
+    }
+
+    // Score outside of any transaction, so the call to the scorer doesn't hold one open.
+    List<Key> pendingKeys = new ArrayList<>();
+    List<String> messages = new ArrayList<>();
+    for (Entity comment : datastore.get(keys).values()) {
+      if (comment.hasProperty(PENDING_PROPERTY)) {
+        pendingKeys.add(comment.getKey());
+        messages.add((String) comment.getProperty("message"));
+      }
+    }
+    if (pendingKeys.isEmpty()) {
+      return;
+    }
+    double[] scores = scorer.score(messages);
+
+    // Read the comments again, so that one deleted or scored meanwhile stays that way.
+    Transaction txn = datastore.beginTransaction(TransactionOptions.Builder.withXG(true));
+    try {
+      Map<Key, Entity> current = datastore.get(txn, pendingKeys);
+      List<Entity> scored = new ArrayList<>();
+      for (int i = 0; i < pendingKeys.size(); i++) {
+        Entity comment = current.get(pendingKeys.get(i));
+        if (comment != null && comment.hasProperty(PENDING_PROPERTY)) {
+          comment.setProperty("sentimentScore", scores[i]);
+          comment.removeProperty(PENDING_PROPERTY);
+          scored.add(comment);
+        }
+      }
+      if (scored.isEmpty()) {
+        return;
+      }
+      datastore.put(txn, scored);
+      txn.commit();
+    } finally {
+      if (txn.isActive()) {
+        txn.rollback();
+      }
+    }
+
+    // The newly scored comments can now be listed.
+    CommentListCache.invalidate(datastore);
+  }
+
+  private static SentimentScorer createScorer() {
+    if ("stub".equals(System.getProperty(SCORER_PROPERTY))) {
+      return new StubSentimentScorer();
+    }
+    return new CloudSentimentScorer();
+  }
+}
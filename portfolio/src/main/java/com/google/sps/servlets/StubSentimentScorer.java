@@ -0,0 +1,50 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Scores messages by counting a few positive and negative words, without calling any service. Used
+ * to run the site locally without Cloud credentials; see {@link SentimentPipeline}.
+ */
+final class StubSentimentScorer implements SentimentScorer {
+
+  private static final Set<String> POSITIVE_WORDS =
+      ImmutableSet.of("good", "great", "love", "nice", "awesome", "thanks", "happy");
+  private static final Set<String> NEGATIVE_WORDS =
+      ImmutableSet.of("bad", "awful", "hate", "terrible", "ugly", "sad", "worst");
+
+  @Override
+  public double[] score(List<String> messages) {
+    double[] scores = new double[messages.size()];
+    for (int i = 0; i < scores.length; i++) {
+      int positive = 0;
+      int negative = 0;
+      for (String word : messages.get(i).toLowerCase(Locale.ROOT).split("\\W+")) {
+        if (POSITIVE_WORDS.contains(word)) {
+          positive++;
+        } else if (NEGATIVE_WORDS.contains(word)) {
+          negative++;
+        }
+      }
+      scores[i] = positive + negative == 0 ? 0 : (double) (positive - negative) / (positive + negative);
+    }
+    return scores;
+  }
+}
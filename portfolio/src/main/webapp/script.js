@@ -133,17 +133,33 @@ function createMarker(location) {
   return marker;
 }
 
-/** Fetches comments from the server and adds them to the DOM. */
+// Token for the page after the comments shown so far, or null if there are no more.
+let nextPageToken = null;
+
+/** Fetches the first page of comments from the server and shows it in the DOM. */
 async function loadComments() {
+  document.getElementById("comment-list").innerHTML = "";
+  nextPageToken = null;
+  await loadMoreComments();
+}
+
+/** Fetches the next page of comments and adds it below the ones already shown. */
+async function loadMoreComments() {
   const value = document.getElementById("num-comments").value;
-  const response = await fetch(`/list-comments?num-comments=${value}`);
-  const comments = await response.json();
+  let url = `/list-comments?num-comments=${value}`;
+  if (nextPageToken) {
+    url += `&page-token=${encodeURIComponent(nextPageToken)}`;
+  }
+  const response = await fetch(url);
+  const page = await response.json();
   const commentsDisplayed = document.getElementById("comment-list");
-  commentsDisplayed.innerHTML = "";
 
-  comments.forEach((comment) => {
+  page.comments.forEach((comment) => {
     commentsDisplayed.appendChild(createCommentElement(comment));
   });
+
+  nextPageToken = page.nextPageToken || null;
+  document.getElementById("load-more-comments").hidden = !nextPageToken;
 }
 
 /** Creates an element that represents a comment, including its delete button. */
@@ -174,8 +190,22 @@ async function deleteComment(comment) {
   await fetch("/delete-comment", { method: "POST", body: params });
 }
 
+/** Tells the server to delete every comment, resuming until it reports that it is done. */
 async function deleteAllComments() {
-  await fetch("delete-all-comments", { method: "POST" });
+  let progress = { done: false };
+  while (!progress.done) {
+    const params = new URLSearchParams();
+    if (progress.cursor) {
+      params.append("cursor", progress.cursor);
+    }
+    const response = await fetch("delete-all-comments", { method: "POST", body: params });
+    if (!response.ok) {
+      break;
+    }
+    progress = await response.json();
+  }
   const commentsDisplayed = document.getElementById("comment-list");
   commentsDisplayed.innerHTML = "";
+  nextPageToken = null;
+  document.getElementById("load-more-comments").hidden = true;
 }
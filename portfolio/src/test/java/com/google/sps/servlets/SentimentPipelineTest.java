@@ -0,0 +1,142 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import com.google.appengine.tools.development.testing.LocalTaskQueueTestConfig;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SentimentPipelineTest {
+  private final LocalServiceTestHelper helper = new LocalServiceTestHelper(
+      new LocalDatastoreServiceTestConfig().setApplyAllHighRepJobPolicy(),
+      new LocalTaskQueueTestConfig()
+          .setQueueXmlPath("src/main/webapp/WEB-INF/queue.xml")
+          .setDisableAutoTaskExecution(true));
+
+  private DatastoreService datastore;
+
+  @Before
+  public void setUp() {
+    helper.setUp();
+    datastore = DatastoreServiceFactory.getDatastoreService();
+  }
+
+  @After
+  public void tearDown() {
+    helper.tearDown();
+  }
+
+  private static Entity comment(String message) {
+    Entity comment = new Entity("Comment");
+    comment.setProperty("message", message);
+    return comment;
+  }
+
+  @Test
+  public void scoresArePendingUntilScored() throws IOException, EntityNotFoundException {
+    Entity comment = comment("Great site, love it");
+    SentimentPipeline.addPendingComment(datastore, comment);
+
+    Entity stored = datastore.get(comment.getKey());
+    Assert.assertTrue(stored.hasProperty(SentimentPipeline.PENDING_PROPERTY));
+    Assert.assertFalse(stored.hasProperty("sentimentScore"));
+
+    int handled = SentimentPipeline.scorePendingBatch(datastore, new StubSentimentScorer());
+
+    Entity scored = datastore.get(comment.getKey());
+    Assert.assertEquals(1, handled);
+    Assert.assertEquals(1.0, (double) scored.getProperty("sentimentScore"), 0);
+    Assert.assertFalse(scored.hasProperty(SentimentPipeline.PENDING_PROPERTY));
+  }
+
+  @Test
+  public void deletedCommentsAreSkipped() throws IOException, EntityNotFoundException {
+    Entity kept = comment("This is awful");
+    Entity deleted = comment("Nice work");
+    SentimentPipeline.addPendingComment(datastore, kept);
+    SentimentPipeline.addPendingComment(datastore, deleted);
+    datastore.delete(deleted.getKey());
+
+    int handled = SentimentPipeline.scorePendingBatch(datastore, new StubSentimentScorer());
+
+    Assert.assertEquals(2, handled);
+    Assert.assertEquals(-1.0, (double) datastore.get(kept.getKey()).getProperty("sentimentScore"), 0);
+    try {
+      datastore.get(deleted.getKey());
+      Assert.fail("deleted comment was written back");
+    } catch (EntityNotFoundException expected) {
+    }
+
+    // Every task was done with, including the deleted comment's.
+    Assert.assertTrue(QueueFactory.getQueue(SentimentPipeline.PENDING_QUEUE)
+        .leaseTasks(60, TimeUnit.SECONDS, SentimentPipeline.BATCH_SIZE).isEmpty());
+  }
+
+  @Test
+  public void commentDeletedWhileScoringIsNotWrittenBack() throws IOException {
+    Entity comment = comment("Thanks, happy to help");
+    SentimentPipeline.addPendingComment(datastore, comment);
+    SentimentScorer deletingScorer = messages -> {
+      datastore.delete(comment.getKey());
+      return new StubSentimentScorer().score(messages);
+    };
+
+    SentimentPipeline.scorePendingBatch(datastore, deletingScorer);
+
+    try {
+      datastore.get(comment.getKey());
+      Assert.fail("deleted comment was written back");
+    } catch (EntityNotFoundException expected) {
+    }
+  }
+
+  @Test
+  public void staleCommentsAreQueuedAgain() throws IOException, EntityNotFoundException {
+    Entity stale = comment("Great site, love it");
+    stale.setProperty("timestamp", 0L);
+    Entity recent = comment("This is awful");
+    recent.setProperty("timestamp", SentimentPipeline.STALE_MILLIS);
+    SentimentPipeline.addPendingComment(datastore, stale);
+    SentimentPipeline.addPendingComment(datastore, recent);
+    // As if the tasks had been lost.
+    Queue queue = QueueFactory.getQueue(SentimentPipeline.PENDING_QUEUE);
+    queue.deleteTask(queue.leaseTasks(60, TimeUnit.SECONDS, SentimentPipeline.BATCH_SIZE));
+
+    int queued = SentimentPipeline.requeueStaleComments(datastore, SentimentPipeline.STALE_MILLIS);
+    SentimentPipeline.scorePendingBatch(datastore, new StubSentimentScorer());
+
+    Assert.assertEquals(1, queued);
+    Assert.assertEquals(1.0,
+        (double) datastore.get(stale.getKey()).getProperty("sentimentScore"), 0);
+    Assert.assertTrue(
+        datastore.get(recent.getKey()).hasProperty(SentimentPipeline.PENDING_PROPERTY));
+  }
+}
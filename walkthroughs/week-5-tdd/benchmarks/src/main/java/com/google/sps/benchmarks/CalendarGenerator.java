@@ -0,0 +1,101 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic calendars for the benchmarks. Everything is derived from a seed, so two runs
+ * with the same parameters measure exactly the same calendar.
+ */
+public final class CalendarGenerator {
+  private static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+  private static final int SHORTEST_EVENT = 15;
+  private static final int LONGEST_EVENT = 120;
+
+  private final Random random;
+
+  public CalendarGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Returns the name of the {@code index}th generated person.
+   */
+  public static String person(int index) {
+    return "Person " + index;
+  }
+
+  /**
+   * Generates {@code eventCount} events between 15 and 120 minutes long.
+   *
+   * @param attendeeCount How many different people appear on the calendar.
+   * @param attendeesPerEvent How many of those people attend each event.
+   * @param overlapDensity From 0 to 1. At 0 events start anywhere in the day, so they rarely
+   *     overlap. Higher values squeeze the start times towards the beginning of the day, and at 1
+   *     every event starts at midnight and they all overlap.
+   */
+  public List<Event> generateEvents(
+      int eventCount, int attendeeCount, int attendeesPerEvent, double overlapDensity) {
+    List<Event> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      int duration = SHORTEST_EVENT + random.nextInt(LONGEST_EVENT - SHORTEST_EVENT + 1);
+      int latestStart = (int) ((MINUTES_PER_DAY - duration) * (1 - overlapDensity));
+      int start = random.nextInt(latestStart + 1);
+
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          pickPeople(attendeeCount, attendeesPerEvent)));
+    }
+    return events;
+  }
+
+  /**
+   * Generates a request for {@code attendeeCount} distinct people, of which about
+   * {@code optionalRatio} are optional.
+   */
+  public MeetingRequest generateRequest(
+      int population, int attendeeCount, double optionalRatio, long duration) {
+    List<String> mandatory = new ArrayList<>();
+    List<String> optional = new ArrayList<>();
+    for (String person : pickPeople(population, attendeeCount)) {
+      if (random.nextDouble() < optionalRatio) {
+        optional.add(person);
+      } else {
+        mandatory.add(person);
+      }
+    }
+
+    MeetingRequest request = new MeetingRequest(mandatory, duration);
+    for (String person : optional) {
+      request.addOptionalAttendee(person);
+    }
+    return request;
+  }
+
+  private Set<String> pickPeople(int population, int count) {
+    Set<String> people = new LinkedHashSet<>();
+    while (people.size() < Math.min(count, population)) {
+      people.add(person(random.nextInt(population)));
+    }
+    return people;
+  }
+}
@@ -0,0 +1,86 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.EventLog;
+import com.google.sps.EventStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold start from an {@link EventLog}: opening and replaying a log of {@code eventCount} additions
+ * and building the {@link EventStore} the servlets query. Each measurement is a single start, as
+ * it would be after a restart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventLogBenchmark {
+  private static final long SEED = 2020;
+
+  @Param({"1000000"})
+  public int eventCount;
+
+  @Param({"10000"})
+  public int population;
+
+  @Param({"3"})
+  public int attendeesPerEvent;
+
+  private Path path;
+
+  @Setup
+  public void setUp() throws IOException {
+    path = Files.createTempFile("events", ".log");
+    Files.delete(path);
+
+    CalendarGenerator generator = new CalendarGenerator(SEED);
+    try (EventLog log = EventLog.open(path)) {
+      for (Event event : generator.generateEvents(eventCount, population, attendeesPerEvent, 0.5)) {
+        log.appendAdd(event);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.delete(path);
+  }
+
+  @Benchmark
+  public EventStore openAndReplay() throws IOException {
+    try (EventLog log = EventLog.open(path)) {
+      return new EventStore(log);
+    }
+  }
+}
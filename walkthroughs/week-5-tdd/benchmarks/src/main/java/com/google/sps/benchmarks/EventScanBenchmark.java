@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeRegistry;
+import com.google.sps.Event;
+import com.google.sps.EventScan;
+import com.google.sps.IntervalSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sequential versus parallel {@link EventScan} over {@code eventCount} events, to find where the
+ * parallel scan starts to pay off. {@link EventScan#PARALLEL_THRESHOLD} should sit just above the
+ * crossover on the machines the servlets run on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventScanBenchmark {
+  private static final long SEED = 2020;
+
+  @Param({"1000", "10000", "50000", "100000", "1000000"})
+  public int eventCount;
+
+  @Param({"10000"})
+  public int population;
+
+  @Param({"3"})
+  public int attendeesPerEvent;
+
+  @Param({"5"})
+  public int attendeeCount;
+
+  private List<Event> events;
+  private int[] attendeeIds;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(SEED);
+    events = generator.generateEvents(eventCount, population, attendeesPerEvent, 0.5);
+    attendeeIds = AttendeeRegistry.getInstance().lookupAll(
+        generator.generateRequest(population, attendeeCount, 0, 30).getAttendees());
+  }
+
+  @Benchmark
+  public IntervalSet sequential() {
+    return EventScan.findBusyIntervalsSequential(events, attendeeIds);
+  }
+
+  @Benchmark
+  public IntervalSet parallel() {
+    return EventScan.findBusyIntervalsParallel(events, attendeeIds);
+  }
+}
@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.BitmapMeetingQuery;
+import com.google.sps.BusyIndex;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link FindMeetingQuery#query} on synthetic calendars, scanning every event versus
+ * looking busy times up in a {@link BusyIndex}, plus the bitmap engine for comparison. Run with
+ * {@code -prof gc} to see how much each variant allocates per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  private static final long SEED = 2020;
+  private static final long DURATION_30_MINUTES = 30;
+
+  @Param({"1000", "100000"})
+  public int eventCount;
+
+  @Param({"2", "10"})
+  public int attendeesPerEvent;
+
+  @Param({"0.0", "0.5"})
+  public double overlapDensity;
+
+  @Param({"0.0", "0.5"})
+  public double optionalRatio;
+
+  // People in the generated calendar, and how many of them each request asks for.
+  @Param({"1000"})
+  public int population;
+
+  @Param({"10"})
+  public int attendeesPerRequest;
+
+  private List<Event> events;
+  private BusyIndex busyIndex;
+  private BitmapMeetingQuery bitmapQuery;
+  private MeetingRequest request;
+  private FindMeetingQuery query;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(SEED);
+    events = generator.generateEvents(eventCount, population, attendeesPerEvent, overlapDensity);
+    request = generator.generateRequest(
+        population, attendeesPerRequest, optionalRatio, DURATION_30_MINUTES);
+
+    busyIndex = new BusyIndex(events);
+    bitmapQuery = new BitmapMeetingQuery(events);
+    query = new FindMeetingQuery();
+  }
+
+  @Benchmark
+  public Collection<TimeRange> scanEvents() {
+    return query.query(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> busyIndex() {
+    return query.query(busyIndex, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> bitmap() {
+    return bitmapQuery.query(request);
+  }
+}
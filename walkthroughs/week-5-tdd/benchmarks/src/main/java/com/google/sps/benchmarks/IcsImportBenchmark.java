@@ -0,0 +1,158 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.IcsImporter;
+import com.google.sps.MultiDayMeetingQuery;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Importing an exported calendar of about {@code fileMegabytes} with {@link IcsImporter}, either
+ * just reading its events or also adding them to a {@link MultiDayMeetingQuery}. Each measurement
+ * is one whole import; the setup prints how many events the file has, so events per second is that
+ * count divided by the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class IcsImportBenchmark {
+  private static final long SEED = 2020;
+  private static final ZoneId ZONE = ZoneId.of("America/New_York");
+  private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 6);
+
+  @Param({"1024"})
+  public int fileMegabytes;
+
+  @Param({"10000"})
+  public int population;
+
+  @Param({"3"})
+  public int attendeesPerEvent;
+
+  // Events are spread over this many days.
+  @Param({"365"})
+  public int days;
+
+  private Path path;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    path = Files.createTempFile("calendar", ".ics");
+    long eventCount = writeCalendar(path);
+    System.out.printf("%n%d events, %d bytes%n", eventCount, Files.size(path));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.delete(path);
+  }
+
+  @Benchmark
+  public long read() throws IOException {
+    long[] count = new long[1];
+    try (InputStream in = Files.newInputStream(path)) {
+      new IcsImporter(ZONE, IcsImporter.DEFAULT_BATCH_SIZE)
+          .importEvents(in, batch -> count[0] += batch.size());
+    }
+    return count[0];
+  }
+
+  @Benchmark
+  public MultiDayMeetingQuery readAndIndex() throws IOException {
+    MultiDayMeetingQuery query = new MultiDayMeetingQuery();
+    try (InputStream in = Files.newInputStream(path)) {
+      new IcsImporter(ZONE, IcsImporter.DEFAULT_BATCH_SIZE).importInto(in, query);
+    }
+    return query;
+  }
+
+  /**
+   * Writes events, shaped like a typical export, until the file is big enough. Returns how many.
+   */
+  private long writeCalendar(Path path) throws IOException {
+    Random random = new Random(SEED);
+    long targetBytes = fileMegabytes * 1024L * 1024L;
+    long bytes = 0;
+    long eventCount = 0;
+
+    try (Writer writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8),
+        1 << 16)) {
+      bytes += write(writer, "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//benchmark//EN\r\n");
+      while (bytes < targetBytes) {
+        LocalDate day = FIRST_DAY.plusDays(random.nextInt(days));
+        int start = random.nextInt(24 * 60 - 120);
+        int end = start + 15 + random.nextInt(106);
+
+        StringBuilder event = new StringBuilder(512);
+        event.append("BEGIN:VEVENT\r\n")
+            .append("UID:").append(eventCount).append("@benchmark\r\n")
+            .append("DTSTAMP:20200101T000000Z\r\n")
+            .append("SUMMARY:Event ").append(eventCount).append("\r\n")
+            .append("DTSTART;TZID=America/New_York:").append(dateTime(day, start)).append("\r\n")
+            .append("DTEND;TZID=America/New_York:").append(dateTime(day, end)).append("\r\n")
+            .append("DESCRIPTION:A generated event with a description long enough to be\r\n")
+            .append("  folded onto a second line\\, as exports do.\r\n");
+        for (int i = 0; i < attendeesPerEvent; i++) {
+          int person = random.nextInt(population);
+          event.append(i == 0 ? "ORGANIZER" : "ATTENDEE;PARTSTAT=ACCEPTED")
+              .append(";CN=").append(CalendarGenerator.person(person))
+              .append(":mailto:person").append(person).append("@example.com\r\n");
+        }
+        event.append("END:VEVENT\r\n");
+
+        bytes += write(writer, event.toString());
+        eventCount++;
+      }
+      write(writer, "END:VCALENDAR\r\n");
+    }
+    return eventCount;
+  }
+
+  private static int write(Writer writer, String text) throws IOException {
+    writer.write(text);
+    return text.length();
+  }
+
+  private static String dateTime(LocalDate day, int minuteOfDay) {
+    return String.format("%04d%02d%02dT%02d%02d00", day.getYear(), day.getMonthValue(),
+        day.getDayOfMonth(), minuteOfDay / 60, minuteOfDay % 60);
+  }
+}
@@ -0,0 +1,83 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Costs of the small building blocks every query uses: {@link TimeRange#overlaps},
+ * {@link TimeRange#contains} and creating an {@link Event}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeRangeBenchmark {
+  private static final int RANGE_COUNT = 1024;
+
+  private TimeRange[] ranges;
+  private List<String> attendees;
+
+  @Setup
+  public void setUp() {
+    List<Event> events = new CalendarGenerator(2020).generateEvents(RANGE_COUNT, 100, 1, 0.0);
+    ranges = events.stream().map(Event::getWhen).toArray(TimeRange[]::new);
+    attendees = Arrays.asList(CalendarGenerator.person(0), CalendarGenerator.person(1),
+        CalendarGenerator.person(2));
+  }
+
+  @Benchmark
+  public void overlaps(Blackhole blackhole) {
+    for (int i = 1; i < RANGE_COUNT; i++) {
+      blackhole.consume(ranges[i - 1].overlaps(ranges[i]));
+    }
+  }
+
+  @Benchmark
+  public void containsRange(Blackhole blackhole) {
+    for (int i = 1; i < RANGE_COUNT; i++) {
+      blackhole.consume(ranges[i - 1].contains(ranges[i]));
+    }
+  }
+
+  @Benchmark
+  public void containsPoint(Blackhole blackhole) {
+    for (int i = 1; i < RANGE_COUNT; i++) {
+      blackhole.consume(ranges[i - 1].contains(ranges[i].start()));
+    }
+  }
+
+  @Benchmark
+  public Event createEvent() {
+    return new Event("Event", ranges[0], attendees);
+  }
+}
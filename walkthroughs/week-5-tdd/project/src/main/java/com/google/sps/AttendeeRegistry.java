@@ -0,0 +1,130 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every attendee name a small, dense {@code int} ID. Events store these IDs instead of
+ * strings, so checking whether two groups of people share someone is a merge of two sorted
+ * {@code int} arrays rather than string hashing and {@code equals} calls.
+ *
+ * <p>IDs are handed out in order starting at 0 and are never reused. They are only meaningful
+ * within one running process.
+ */
+public final class AttendeeRegistry {
+  private static final AttendeeRegistry INSTANCE = new AttendeeRegistry();
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final ConcurrentHashMap<String, Integer> idsByName = new ConcurrentHashMap<>();
+
+  // Indexed by ID. Replaced with a bigger copy when full; only written while holding the lock.
+  private volatile String[] names = new String[INITIAL_CAPACITY];
+  private int size = 0;
+
+  private AttendeeRegistry() {}
+
+  /**
+   * Returns the registry shared by every event in this process.
+   */
+  public static AttendeeRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the ID for {@code name}, assigning a new one if the name has not been seen before.
+   */
+  public int intern(String name) {
+    Integer id = idsByName.get(name);
+    return id != null ? id : assign(name);
+  }
+
+  /**
+   * Returns the ID for {@code name}, or -1 if no event has mentioned that name yet.
+   */
+  public int lookup(String name) {
+    Integer id = idsByName.get(name);
+    return id != null ? id : -1;
+  }
+
+  /**
+   * Returns the name an ID was assigned to.
+   */
+  public String getName(int id) {
+    return names[id];
+  }
+
+  /**
+   * Returns the sorted, duplicate-free IDs of {@code names}, assigning IDs to new names.
+   */
+  public int[] internAll(Collection<String> names) {
+    int[] ids = new int[names.size()];
+    int count = 0;
+    for (String name : names) {
+      ids[count++] = intern(name);
+    }
+    return sortedUnique(ids, count);
+  }
+
+  /**
+   * Returns the sorted, duplicate-free IDs of the names that already have one. Names no event has
+   * mentioned are left out, since nobody can be busy with them.
+   */
+  public int[] lookupAll(Collection<String> names) {
+    int[] ids = new int[names.size()];
+    int count = 0;
+    for (String name : names) {
+      int id = lookup(name);
+      if (id >= 0) {
+        ids[count++] = id;
+      }
+    }
+    return sortedUnique(ids, count);
+  }
+
+  private synchronized int assign(String name) {
+    // Another thread may have assigned it while we waited for the lock.
+    Integer existing = idsByName.get(name);
+    if (existing != null) {
+      return existing;
+    }
+
+    String[] current = names;
+    if (size == current.length) {
+      current = Arrays.copyOf(current, current.length * 2);
+    }
+    current[size] = name;
+    names = current;
+
+    // Publish the name before the ID so that anyone who finds the ID can also find the name.
+    idsByName.put(name, size);
+    return size++;
+  }
+
+  private static int[] sortedUnique(int[] ids, int count) {
+    Arrays.sort(ids, 0, count);
+
+    int unique = 0;
+    for (int i = 0; i < count; i++) {
+      if (unique == 0 || ids[unique - 1] != ids[i]) {
+        ids[unique++] = ids[i];
+      }
+    }
+    return unique == ids.length ? ids : Arrays.copyOf(ids, unique);
+  }
+}
@@ -0,0 +1,184 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+
+/**
+ * A single day as a bitmap with one bit per minute. A set bit means someone is busy during that
+ * minute, a clear bit means they are free. Combining the days of several people is a word-wise OR.
+ */
+public final class AvailabilityBitmap {
+  public static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  private static final int BITS_PER_WORD = Long.SIZE;
+  private static final int WORDS_PER_DAY = (MINUTES_PER_DAY + BITS_PER_WORD - 1) / BITS_PER_WORD;
+
+  /** Length of {@link #toByteArray}. */
+  public static final int BYTES_PER_DAY = (MINUTES_PER_DAY + Byte.SIZE - 1) / Byte.SIZE;
+
+  private final long[] words = new long[WORDS_PER_DAY];
+
+  /**
+   * Returns a bitmap with every minute of {@code busyIntervals} marked as busy.
+   */
+  public static AvailabilityBitmap of(IntervalSet busyIntervals) {
+    AvailabilityBitmap bitmap = new AvailabilityBitmap();
+    for (int i = 0; i < busyIntervals.size(); i++) {
+      bitmap.markBusy(busyIntervals.start(i), busyIntervals.end(i));
+    }
+    return bitmap;
+  }
+
+  /**
+   * Returns the bitmap {@link #toByteArray} encoded as {@code bytes}.
+   *
+   * @throws IllegalArgumentException if {@code bytes} is not {@link #BYTES_PER_DAY} long
+   */
+  public static AvailabilityBitmap fromByteArray(byte[] bytes) {
+    if (bytes.length != BYTES_PER_DAY) {
+      throw new IllegalArgumentException("expected " + BYTES_PER_DAY + " bytes");
+    }
+
+    AvailabilityBitmap bitmap = new AvailabilityBitmap();
+    for (int i = 0; i < bytes.length; i++) {
+      bitmap.words[i / Long.BYTES] |= (bytes[i] & 0xFFL) << (i % Long.BYTES * Byte.SIZE);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Marks every minute of {@code range} as busy. Minutes outside of the day are ignored.
+   */
+  public void markBusy(TimeRange range) {
+    markBusy(range.start(), range.end());
+  }
+
+  /**
+   * Marks the minutes from {@code start} (inclusive) to {@code end} (exclusive) as busy. Minutes
+   * outside of the day are ignored.
+   */
+  public void markBusy(int start, int end) {
+    start = Math.max(start, 0);
+    end = Math.min(end, MINUTES_PER_DAY);
+    if (start >= end) {
+      return;
+    }
+
+    int firstWord = start / BITS_PER_WORD;
+    int lastWord = (end - 1) / BITS_PER_WORD;
+
+    // Shifting a long only uses the low six bits of the shift count, so these masks are the bits
+    // at or above {@code start} in the first word and below {@code end} in the last word.
+    long firstMask = -1L << start;
+    long lastMask = -1L >>> -end;
+
+    if (firstWord == lastWord) {
+      words[firstWord] |= firstMask & lastMask;
+      return;
+    }
+
+    words[firstWord] |= firstMask;
+    Arrays.fill(words, firstWord + 1, lastWord, -1L);
+    words[lastWord] |= lastMask;
+  }
+
+  /**
+   * Adds all of the busy minutes of {@code other} to this bitmap.
+   */
+  public void or(AvailabilityBitmap other) {
+    for (int i = 0; i < WORDS_PER_DAY; i++) {
+      words[i] |= other.words[i];
+    }
+  }
+
+  /**
+   * Returns whether {@code minute} is marked as busy.
+   */
+  public boolean isBusy(int minute) {
+    return (words[minute / BITS_PER_WORD] & (1L << minute)) != 0;
+  }
+
+  /**
+   * Returns every run of free minutes that is at least {@code minDuration} minutes long, sorted by
+   * start time.
+   */
+  public ImmutableList<TimeRange> findFreeRanges(long minDuration) {
+    ImmutableList.Builder<TimeRange> freeRanges = ImmutableList.builder();
+
+    int minute = 0;
+    while (minute < MINUTES_PER_DAY) {
+      int start = nextFree(minute);
+      if (start >= MINUTES_PER_DAY) {
+        break;
+      }
+
+      int end = nextBusy(start);
+      if (end - start >= minDuration) {
+        freeRanges.add(TimeRange.fromStartEnd(start, end, false));
+      }
+      minute = end;
+    }
+
+    return freeRanges.build();
+  }
+
+  /**
+   * Returns a copy of the underlying words. Bit {@code i % 64} of word {@code i / 64} is minute
+   * {@code i}.
+   */
+  public long[] toLongArray() {
+    return words.clone();
+  }
+
+  /**
+   * Returns the bitmap as {@link #BYTES_PER_DAY} bytes. Bit {@code i % 8} of byte {@code i / 8},
+   * counting from the least significant bit, is minute {@code i}.
+   */
+  public byte[] toByteArray() {
+    byte[] bytes = new byte[BYTES_PER_DAY];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (words[i / Long.BYTES] >>> (i % Long.BYTES * Byte.SIZE));
+    }
+    return bytes;
+  }
+
+  /** Returns the first free minute at or after {@code from}, or the end of the day if none. */
+  private int nextFree(int from) {
+    return nextClearOrSet(from, /* findBusy= */ false);
+  }
+
+  /** Returns the first busy minute at or after {@code from}, or the end of the day if none. */
+  private int nextBusy(int from) {
+    return nextClearOrSet(from, /* findBusy= */ true);
+  }
+
+  private int nextClearOrSet(int from, boolean findBusy) {
+    int wordIndex = from / BITS_PER_WORD;
+    // Drop the bits below {@code from} so whole runs can be skipped one word at a time.
+    long word = (findBusy ? words[wordIndex] : ~words[wordIndex]) & (-1L << from);
+
+    while (word == 0) {
+      wordIndex++;
+      if (wordIndex == WORDS_PER_DAY) {
+        return MINUTES_PER_DAY;
+      }
+      word = findBusy ? words[wordIndex] : ~words[wordIndex];
+    }
+
+    return Math.min(wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word), MINUTES_PER_DAY);
+  }
+}
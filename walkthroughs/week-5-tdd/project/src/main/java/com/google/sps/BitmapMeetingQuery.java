@@ -0,0 +1,86 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Alternate engine for {@link FindMeetingQuery} that keeps each attendee's day as an
+ * {@link AvailabilityBitmap}. Availability for a group is the OR of its members' bitmaps, and free
+ * ranges are the runs of clear bits that are long enough for the meeting.
+ */
+public final class BitmapMeetingQuery {
+  private static final AvailabilityBitmap ALWAYS_FREE = new AvailabilityBitmap();
+
+  private final Map<String, AvailabilityBitmap> busyMinutesByAttendee = new HashMap<>();
+
+  /**
+   * Builds one bitmap per attendee from {@code events}. The bitmaps are reused by every call to
+   * {@link #query(MeetingRequest)}.
+   */
+  public BitmapMeetingQuery(Collection<Event> events) {
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    for (Event event : events) {
+      for (int i = 0; i < event.getAttendeeCount(); i++) {
+        String attendee = registry.getName(event.getAttendeeId(i));
+        busyMinutesByAttendee
+            .computeIfAbsent(attendee, name -> new AvailabilityBitmap())
+            .markBusy(event.getWhen());
+      }
+    }
+  }
+
+  /**
+   * Return all possible time ranges to hold a meeting of specific duration. Optional attendees are
+   * handled the same way as {@link FindMeetingQuery#query}: they are included only if every one of
+   * them can attend.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    AvailabilityBitmap mandatoryBusy = findBusyMinutes(request.getAttendees());
+
+    if (!request.getOptionalAttendees().isEmpty()) {
+      AvailabilityBitmap allBusy = findBusyMinutes(request.getOptionalAttendees());
+      allBusy.or(mandatoryBusy);
+      ImmutableList<TimeRange> freeRangesForAllAttendees =
+          allBusy.findFreeRanges(request.getDuration());
+
+      // With no mandatory attendees there is nothing to fall back to.
+      if (freeRangesForAllAttendees.isEmpty() && request.getAttendees().isEmpty()) {
+        return Collections.emptyList();
+      }
+
+      if (!freeRangesForAllAttendees.isEmpty()) {
+        return freeRangesForAllAttendees;
+      }
+    }
+
+    return mandatoryBusy.findFreeRanges(request.getDuration());
+  }
+
+  /**
+   * Returns a new bitmap with the busy minutes of every one of {@code attendees}.
+   */
+  private AvailabilityBitmap findBusyMinutes(Collection<String> attendees) {
+    AvailabilityBitmap busy = new AvailabilityBitmap();
+    for (String attendee : attendees) {
+      busy.or(busyMinutesByAttendee.getOrDefault(attendee, ALWAYS_FREE));
+    }
+    return busy;
+  }
+}
@@ -0,0 +1,366 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index from each attendee to the times they are busy. The index is built once from a collection
+ * of events and kept up to date as events are added or removed, so a query only has to look at the
+ * attendees it asks about instead of every event on the calendar.
+ *
+ * <p>An index is not safe to modify while other threads read it. Use {@link #snapshot} to get a
+ * read-only copy that can be shared between threads.
+ *
+ * <p>With a {@link HotGroupTracker}, the index also keeps the merged busy times of frequently
+ * requested groups of attendees, updating them as events change, and returns those directly.
+ */
+public final class BusyIndex {
+  private final Map<String, AttendeeRanges> rangesByAttendee;
+  private final boolean readOnly;
+
+  // Merged busy times of each group the tracker found to be hot.
+  private final Map<ImmutableSortedSet<String>, IntervalSet> mergedByGroup;
+
+  // The attendee IDs of each of those groups, so changes can find the groups they affect without
+  // looking up any names. Only used by writable indexes.
+  private final Map<ImmutableSortedSet<String>, int[]> attendeeIdsByGroup;
+
+  // Null if hot groups are not tracked.
+  private HotGroupTracker hotGroupTracker;
+
+  /**
+   * Creates an empty index.
+   */
+  public BusyIndex() {
+    this.rangesByAttendee = new HashMap<>();
+    this.mergedByGroup = new HashMap<>();
+    this.attendeeIdsByGroup = new HashMap<>();
+    this.readOnly = false;
+  }
+
+  /**
+   * Creates an index containing every event in {@code events}.
+   */
+  public BusyIndex(Collection<Event> events) {
+    this();
+
+    // Group the ranges by attendee ID with a counting sort: count each attendee's events, then
+    // write every range straight into that attendee's slice of one array. Each range is packed into
+    // a long, start first, so sorting a slice sorts it by start without any comparator.
+    int[] offsets = new int[1];
+    for (Event event : events) {
+      for (int i = 0; i < event.getAttendeeCount(); i++) {
+        int id = event.getAttendeeId(i);
+        if (id + 2 >= offsets.length) {
+          offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, id + 3));
+        }
+        offsets[id + 2]++;
+      }
+    }
+    for (int id = 2; id < offsets.length; id++) {
+      offsets[id] += offsets[id - 1];
+    }
+
+    // offsets[id + 1] is where the next range of attendee id goes; once every range is written it
+    // is the end of their slice and offsets[id] is its start.
+    long[] packedRanges = new long[offsets[offsets.length - 1]];
+    for (Event event : events) {
+      long packed = pack(event.getWhen().start(), event.getWhen().end());
+      for (int i = 0; i < event.getAttendeeCount(); i++) {
+        packedRanges[offsets[event.getAttendeeId(i) + 1]++] = packed;
+      }
+    }
+
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    for (int id = 0; id + 1 < offsets.length; id++) {
+      if (offsets[id] < offsets[id + 1]) {
+        rangesByAttendee.put(registry.getName(id),
+            AttendeeRanges.ofPacked(packedRanges, offsets[id], offsets[id + 1]));
+      }
+    }
+  }
+
+  private BusyIndex(ImmutableMap<String, AttendeeRanges> rangesByAttendee,
+      ImmutableMap<ImmutableSortedSet<String>, IntervalSet> mergedByGroup,
+      HotGroupTracker hotGroupTracker) {
+    this.rangesByAttendee = rangesByAttendee;
+    this.mergedByGroup = mergedByGroup;
+    this.attendeeIdsByGroup = ImmutableMap.of();
+    this.hotGroupTracker = hotGroupTracker;
+    this.readOnly = true;
+  }
+
+  /**
+   * Returns a read-only copy of this index that later calls to {@link #add} and {@link #remove} do
+   * not affect. The busy ranges of each attendee are immutable, so the copy shares them with this
+   * index and only costs as much as the number of attendees.
+   */
+  public BusyIndex snapshot() {
+    return readOnly ? this : new BusyIndex(ImmutableMap.copyOf(rangesByAttendee),
+        ImmutableMap.copyOf(mergedByGroup), hotGroupTracker);
+  }
+
+  /**
+   * Reports every lookup of a group of attendees to {@code tracker}, and answers lookups of the
+   * groups passed to {@link #materialize} without merging anything.
+   *
+   * @throws UnsupportedOperationException if this index is a snapshot
+   */
+  public void setHotGroupTracker(HotGroupTracker tracker) {
+    checkWritable();
+    this.hotGroupTracker = tracker;
+  }
+
+  /**
+   * Merges the busy times of {@code group} now and keeps them up to date from here on, so that
+   * {@link #findBusyIntervals} for exactly this group is a single lookup.
+   *
+   * @throws UnsupportedOperationException if this index is a snapshot
+   */
+  public void materialize(Collection<String> group) {
+    checkWritable();
+    ImmutableSortedSet<String> key = ImmutableSortedSet.copyOf(group);
+    mergedByGroup.put(key, mergeBusyIntervals(key));
+    // Intern rather than look up, so members who get their first event later are still found.
+    attendeeIdsByGroup.put(key, AttendeeRegistry.getInstance().internAll(key));
+  }
+
+  /**
+   * Stops keeping the merged busy times of {@code group}, undoing {@link #materialize}.
+   *
+   * @throws UnsupportedOperationException if this index is a snapshot
+   */
+  public void dematerialize(Collection<String> group) {
+    checkWritable();
+    ImmutableSortedSet<String> key = ImmutableSortedSet.copyOf(group);
+    mergedByGroup.remove(key);
+    attendeeIdsByGroup.remove(key);
+  }
+
+  /**
+   * Marks every attendee of {@code event} as busy for the duration of the event.
+   *
+   * @throws UnsupportedOperationException if this index is a snapshot
+   */
+  public void add(Event event) {
+    checkWritable();
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    for (int i = 0; i < event.getAttendeeCount(); i++) {
+      String attendee = registry.getName(event.getAttendeeId(i));
+      AttendeeRanges ranges = rangesByAttendee.get(attendee);
+      rangesByAttendee.put(attendee,
+          ranges == null ? AttendeeRanges.of(event.getWhen())
+                         : ranges.with(event.getWhen()));
+    }
+
+    // Adding time can only grow a group's busy times, so merge the new range in.
+    IntervalSet added = IntervalSet.of(event.getWhen().start(), event.getWhen().end());
+    for (Map.Entry<ImmutableSortedSet<String>, IntervalSet> entry : mergedByGroup.entrySet()) {
+      if (event.hasAnyAttendee(attendeeIdsByGroup.get(entry.getKey()))) {
+        entry.setValue(entry.getValue().union(added));
+      }
+    }
+  }
+
+  /**
+   * Undoes a previous call to {@link #add} for an equal event. Events that were never added are
+   * ignored.
+   *
+   * @throws UnsupportedOperationException if this index is a snapshot
+   */
+  public void remove(Event event) {
+    checkWritable();
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    for (int i = 0; i < event.getAttendeeCount(); i++) {
+      String attendee = registry.getName(event.getAttendeeId(i));
+      AttendeeRanges ranges = rangesByAttendee.get(attendee);
+      if (ranges == null) {
+        continue;
+      }
+
+      AttendeeRanges remaining = ranges.without(event.getWhen());
+      if (remaining.isEmpty()) {
+        rangesByAttendee.remove(attendee);
+      } else {
+        rangesByAttendee.put(attendee, remaining);
+      }
+    }
+
+    // Another event may still cover some of the removed time, so merge the members again.
+    for (Map.Entry<ImmutableSortedSet<String>, IntervalSet> entry : mergedByGroup.entrySet()) {
+      if (event.hasAnyAttendee(attendeeIdsByGroup.get(entry.getKey()))) {
+        entry.setValue(mergeBusyIntervals(entry.getKey()));
+      }
+    }
+  }
+
+  /**
+   * Returns everyone with at least one event, in no particular order. The set is a live view of a
+   * writable index, so take a snapshot first to iterate over it while the index changes.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(rangesByAttendee.keySet());
+  }
+
+  /**
+   * Returns the times {@code attendee} is busy. Overlapping and adjacent events are merged.
+   */
+  public IntervalSet getBusyIntervals(String attendee) {
+    AttendeeRanges ranges = rangesByAttendee.get(attendee);
+    return ranges == null ? IntervalSet.empty() : ranges.merged;
+  }
+
+  /**
+   * Returns the times at least one of {@code attendees} is busy.
+   */
+  public IntervalSet findBusyIntervals(Collection<String> attendees) {
+    if (hotGroupTracker != null && attendees.size() > 1) {
+      boolean sampled = hotGroupTracker.shouldSample();
+      if (!sampled && mergedByGroup.isEmpty()) {
+        // Nothing to look up and nothing to count, so don't pay for sorting the group.
+        hotGroupTracker.recordSlowPath();
+        return mergeBusyIntervals(attendees);
+      }
+
+      ImmutableSortedSet<String> group = ImmutableSortedSet.copyOf(attendees);
+      IntervalSet merged = mergedByGroup.get(group);
+      if (merged != null) {
+        if (sampled) {
+          hotGroupTracker.recordFastPath(group);
+        } else {
+          hotGroupTracker.recordFastPath();
+        }
+        return merged;
+      }
+      if (sampled) {
+        hotGroupTracker.recordSlowPath(group);
+      } else {
+        hotGroupTracker.recordSlowPath();
+      }
+    }
+
+    return mergeBusyIntervals(attendees);
+  }
+
+  private IntervalSet mergeBusyIntervals(Collection<String> attendees) {
+    List<IntervalSet> busyIntervals = new ArrayList<>(attendees.size());
+    for (String attendee : attendees) {
+      busyIntervals.add(getBusyIntervals(attendee));
+    }
+    return IntervalSet.unionAll(busyIntervals);
+  }
+
+  private static long pack(int start, int end) {
+    return ((long) start << 32) | end;
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("snapshots cannot be modified");
+    }
+  }
+
+  /**
+   * The busy times of one attendee. Instances are never modified; adding or removing a range
+   * creates a new instance.
+   */
+  private static final class AttendeeRanges {
+    // Every range the attendee is busy for, sorted by start in two parallel arrays. Kept so that
+    // removing one event does not lose the time covered by another event that overlaps it.
+    private final int[] starts;
+    private final int[] ends;
+
+    // The union of all of the ranges above.
+    private final IntervalSet merged;
+
+    private AttendeeRanges(int[] starts, int[] ends) {
+      this.starts = starts;
+      this.ends = ends;
+
+      IntervalSet.Builder builder = new IntervalSet.Builder(starts.length);
+      for (int i = 0; i < starts.length; i++) {
+        builder.add(starts[i], ends[i]);
+      }
+      this.merged = builder.build();
+    }
+
+    private static AttendeeRanges of(TimeRange range) {
+      return new AttendeeRanges(new int[] {range.start()}, new int[] {range.end()});
+    }
+
+    /**
+     * Returns the ranges packed into {@code packedRanges} from {@code from} (inclusive) to
+     * {@code to} (exclusive), sorting that part of the array first.
+     */
+    private static AttendeeRanges ofPacked(long[] packedRanges, int from, int to) {
+      Arrays.sort(packedRanges, from, to);
+
+      int[] starts = new int[to - from];
+      int[] ends = new int[to - from];
+      for (int i = from; i < to; i++) {
+        starts[i - from] = (int) (packedRanges[i] >>> 32);
+        ends[i - from] = (int) packedRanges[i];
+      }
+      return new AttendeeRanges(starts, ends);
+    }
+
+    private boolean isEmpty() {
+      return starts.length == 0;
+    }
+
+    private AttendeeRanges with(TimeRange range) {
+      // Insert after every range that starts at or before this one.
+      int insertAt = 0;
+      while (insertAt < starts.length && starts[insertAt] <= range.start()) {
+        insertAt++;
+      }
+
+      int[] newStarts = new int[starts.length + 1];
+      int[] newEnds = new int[ends.length + 1];
+      System.arraycopy(starts, 0, newStarts, 0, insertAt);
+      System.arraycopy(ends, 0, newEnds, 0, insertAt);
+      newStarts[insertAt] = range.start();
+      newEnds[insertAt] = range.end();
+      System.arraycopy(starts, insertAt, newStarts, insertAt + 1, starts.length - insertAt);
+      System.arraycopy(ends, insertAt, newEnds, insertAt + 1, ends.length - insertAt);
+      return new AttendeeRanges(newStarts, newEnds);
+    }
+
+    private AttendeeRanges without(TimeRange range) {
+      for (int i = 0; i < starts.length; i++) {
+        if (starts[i] == range.start() && ends[i] == range.end()) {
+          int[] newStarts = new int[starts.length - 1];
+          int[] newEnds = new int[ends.length - 1];
+          System.arraycopy(starts, 0, newStarts, 0, i);
+          System.arraycopy(ends, 0, newEnds, 0, i);
+          System.arraycopy(starts, i + 1, newStarts, i, starts.length - i - 1);
+          System.arraycopy(ends, i + 1, newEnds, i, ends.length - i - 1);
+          return new AttendeeRanges(newStarts, newEnds);
+        }
+      }
+      return this;
+    }
+  }
+}
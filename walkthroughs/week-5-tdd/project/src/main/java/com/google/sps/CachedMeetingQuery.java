@@ -0,0 +1,300 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link FindMeetingQuery} over an {@link EventStore} with a bounded, least-recently-used cache of
+ * answers in front of it. Requests for the same attendees and duration share a cache entry no
+ * matter what order the attendees are listed in.
+ *
+ * <p>Each change to the store only drops the cached answers of requests that mention one of the
+ * changed event's attendees; answers for everybody else stay cached. Queries never lock: every
+ * answer remembers the snapshot it was computed from, so an answer computed while a change was
+ * being made is not served once the change is done.
+ */
+public final class CachedMeetingQuery {
+  // Attendees whose last change is tracked, at the least, before pruning.
+  private static final long MIN_TRACKED_CHANGES = 1024;
+
+  private final EventStore store;
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+  private final Cache<Key, Answer> answers;
+
+  // Lookups answered from the cache, and lookups that found no current answer.
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  // Every cached key that mentions an attendee, so a change to their events can drop exactly those.
+  // The sets are only touched inside the map's atomic compute methods or after being removed.
+  private final ConcurrentMap<String, Set<Key>> keysByAttendee = new ConcurrentHashMap<>();
+
+  // The version of the snapshot in which each attendee's events last changed, for changes after
+  // trustedSince. Pruned once it tracks more attendees than maxTrackedChanges.
+  private final ConcurrentMap<String, Long> changedInVersion = new ConcurrentHashMap<>();
+  private final long maxTrackedChanges;
+
+  // Changes up to this version are no longer tracked, so answers computed from an older snapshot
+  // can't be trusted.
+  private volatile long trustedSince = Long.MIN_VALUE;
+
+  /**
+   * Creates a cache of at most {@code maximumSize} answers to queries over {@code store}.
+   */
+  public CachedMeetingQuery(EventStore store, long maximumSize) {
+    this.store = store;
+    this.maxTrackedChanges = Math.max(maximumSize, MIN_TRACKED_CHANGES);
+    this.answers = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .removalListener(this::forgetKey)
+        .build();
+    store.addChangeListener(this::invalidate);
+  }
+
+  /**
+   * Returns the same ranges as {@link FindMeetingQuery#query(BusyIndex, MeetingRequest)} on the
+   * current snapshot of the store, computing them only if no answer for an equivalent request is
+   * cached.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    Key key = new Key(request);
+    Answer answer = getIfCurrent(key);
+    if (answer != null) {
+      return answer.ranges;
+    }
+
+    EventStore.Snapshot snapshot = store.snapshot();
+    answer = new Answer(
+        ImmutableList.copyOf(findMeetingQuery.query(snapshot.getBusyIndex(), request)),
+        snapshot.getVersion());
+    for (String attendee : key.attendees()) {
+      keysByAttendee.compute(attendee, (name, keys) -> {
+        Set<Key> updated = keys == null ? new HashSet<>() : keys;
+        updated.add(key);
+        return updated;
+      });
+    }
+    answers.put(key, answer);
+    return answer.ranges;
+  }
+
+  /**
+   * Returns at most the first {@code limit} ranges of {@link #query(MeetingRequest)}. An uncached
+   * answer is found lazily and stops after {@code limit} ranges, so it is not cached either.
+   */
+  public Collection<TimeRange> query(MeetingRequest request, int limit) {
+    Answer answer = getIfCurrent(new Key(request));
+    if (answer != null) {
+      return answer.ranges.subList(0, Math.min(limit, answer.ranges.size()));
+    }
+
+    BusyIndex index = store.snapshot().getBusyIndex();
+    return ImmutableList.copyOf(Iterators.limit(findMeetingQuery.iterate(index, request), limit));
+  }
+
+  /**
+   * Returns the number of queries answered from the cache, the number computed, and the number of
+   * answers evicted to stay within the maximum size.
+   */
+  public CacheStats stats() {
+    return new CacheStats(hits.sum(), misses.sum(), 0, 0, 0, answers.stats().evictionCount());
+  }
+
+  /**
+   * Returns the number of answers currently cached.
+   */
+  public long size() {
+    return answers.size();
+  }
+
+  /**
+   * Returns the number of attendees whose last change is remembered. It stays below a bound that
+   * depends on the maximum size of the cache, however many attendees have ever changed.
+   */
+  long trackedChangeCount() {
+    return changedInVersion.size();
+  }
+
+  /**
+   * Returns the cached answer for {@code key}, unless one of its attendees changed after the
+   * snapshot it was computed from.
+   */
+  private Answer getIfCurrent(Key key) {
+    // Looking up through the map view leaves the cache's own statistics alone, so that a stale
+    // answer counts as a miss rather than a hit.
+    Answer answer = answers.asMap().get(key);
+    if (answer != null && isStale(key, answer)) {
+      answers.invalidate(key);
+      answer = null;
+    }
+
+    if (answer == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return answer;
+  }
+
+  private boolean isStale(Key key, Answer answer) {
+    for (String attendee : key.attendees()) {
+      Long changed = changedInVersion.get(attendee);
+      if (changed != null && changed > answer.version) {
+        return true;
+      }
+    }
+
+    // Read after the changes: pruning raises this before it forgets any of them.
+    return answer.version < trustedSince;
+  }
+
+  private void invalidate(Event event, EventStore.Snapshot snapshot) {
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    for (int i = 0; i < event.getAttendeeCount(); i++) {
+      String attendee = registry.getName(event.getAttendeeId(i));
+      changedInVersion.merge(attendee, snapshot.getVersion(), Math::max);
+
+      Set<Key> keys = keysByAttendee.remove(attendee);
+      if (keys != null) {
+        answers.invalidateAll(keys);
+      }
+    }
+
+    if (changedInVersion.size() > maxTrackedChanges) {
+      pruneChanges(snapshot.getVersion());
+    }
+  }
+
+  /**
+   * Forgets old changes. Only answers computed before the cached answer with the oldest snapshot
+   * could need them, which are queries still running, so those answers are simply not trusted. If
+   * that frees too little, forgets every change up to {@code latestVersion} and lets every older
+   * answer be computed again.
+   */
+  private synchronized void pruneChanges(long latestVersion) {
+    if (changedInVersion.size() <= maxTrackedChanges) {
+      return;
+    }
+
+    long oldestAnswer = latestVersion;
+    for (Answer answer : answers.asMap().values()) {
+      oldestAnswer = Math.min(oldestAnswer, answer.version);
+    }
+    forgetChangesUpTo(oldestAnswer);
+
+    if (changedInVersion.size() > maxTrackedChanges / 2) {
+      forgetChangesUpTo(latestVersion);
+    }
+  }
+
+  private void forgetChangesUpTo(long version) {
+    trustedSince = Math.max(trustedSince, version);
+    for (Map.Entry<String, Long> entry : changedInVersion.entrySet()) {
+      // Conditional removal, so a change recorded meanwhile with a later version is kept.
+      if (entry.getValue() <= version) {
+        changedInVersion.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private void forgetKey(RemovalNotification<Key, Answer> notification) {
+    // Evicted or invalidated entries must not keep their keys alive in the reverse index. A
+    // replaced entry's key is still cached, and was just added to the index again.
+    if (!notification.wasEvicted() && notification.getCause() != RemovalCause.EXPLICIT) {
+      return;
+    }
+    Key key = notification.getKey();
+    for (String attendee : key.attendees()) {
+      keysByAttendee.computeIfPresent(attendee, (name, keys) -> {
+        keys.remove(key);
+        return keys.isEmpty() ? null : keys;
+      });
+    }
+  }
+
+  /**
+   * Free ranges and the version of the snapshot they were computed from.
+   */
+  private static final class Answer {
+    private final ImmutableList<TimeRange> ranges;
+    private final long version;
+
+    private Answer(ImmutableList<TimeRange> ranges, long version) {
+      this.ranges = ranges;
+      this.version = version;
+    }
+  }
+
+  /**
+   * The parts of a {@link MeetingRequest} that decide its answer, with attendees in sorted order.
+   */
+  private static final class Key {
+    private final ImmutableSortedSet<String> mandatory;
+    private final ImmutableSortedSet<String> optional;
+    private final long duration;
+    private final boolean maximizeOptionalAttendees;
+    private final int leastConflictSlots;
+
+    private Key(MeetingRequest request) {
+      this.mandatory = ImmutableSortedSet.copyOf(request.getAttendees());
+      this.optional = ImmutableSortedSet.copyOf(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.maximizeOptionalAttendees = request.shouldMaximizeOptionalAttendees();
+      this.leastConflictSlots = request.getLeastConflictSlots();
+    }
+
+    private Iterable<String> attendees() {
+      return Iterables.concat(mandatory, optional);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+
+      Key that = (Key) other;
+      return duration == that.duration
+          && maximizeOptionalAttendees == that.maximizeOptionalAttendees
+          && leastConflictSlots == that.leastConflictSlots
+          && mandatory.equals(that.mandatory)
+          && optional.equals(that.optional);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(mandatory, optional, duration, maximizeOptionalAttendees,
+          leastConflictSlots);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Sweep line over busy-range endpoints that counts, for every minute a meeting could start at, how
+ * many attendees would have a conflict with it.
+ *
+ * <p>A meeting of length {@code d} starting at {@code s} conflicts with a busy range {@code [a, b)}
+ * exactly when {@code a - d < s < b}. Each busy range is turned into that range of start times, the
+ * start times of one attendee are merged so they are counted at most once, and the endpoints of all
+ * of them are sorted and swept once. That keeps the cost at O(n log n) in the number of busy ranges
+ * no matter how many attendees there are.
+ */
+final class ConflictSweep {
+  private static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  // The low two bits of each encoded endpoint say what happens at that minute.
+  private static final int ATTENDEE_FREE_AGAIN = 0;
+  private static final int ATTENDEE_CONFLICT = 1;
+  private static final int BLOCKED_FREE_AGAIN = 2;
+  private static final int BLOCKED_CONFLICT = 3;
+
+  private ConflictSweep() {
+    // Disallow instances.
+  }
+
+  /**
+   * A run of meeting start times that all conflict with the same number of attendees.
+   */
+  static final class Segment {
+    // First start time in the run.
+    final int start;
+
+    // Start time just after the run.
+    final int end;
+
+    // Number of attendees busy during a meeting that starts anywhere in the run.
+    final int conflicts;
+
+    private Segment(int start, int end, int conflicts) {
+      this.start = start;
+      this.end = end;
+      this.conflicts = conflicts;
+    }
+  }
+
+  /**
+   * Returns the runs of possible start times for a meeting of {@code duration}, sorted by start
+   * time, with the number of attendees each run conflicts with. Start times that overlap any of
+   * {@code blockedRanges} or that would end the meeting after the end of the day are left out.
+   *
+   * @param busyRangesByAttendee For each attendee, the times they are busy.
+   * @param blockedRanges Times that no meeting may overlap, e.g. mandatory attendees' events.
+   */
+  static ImmutableList<Segment> countConflicts(Collection<IntervalSet> busyRangesByAttendee,
+      IntervalSet blockedRanges, long duration) {
+    ImmutableList.Builder<Segment> segments = ImmutableList.builder();
+    if (duration > MINUTES_PER_DAY) {
+      return segments.build();
+    }
+
+    // Meetings may start from the beginning of the day up to the last minute that still lets them
+    // finish before the day ends.
+    int endOfStarts = (int) Math.min(MINUTES_PER_DAY - duration + 1, MINUTES_PER_DAY);
+
+    int size = blockedRanges.size();
+    for (IntervalSet busyRanges : busyRangesByAttendee) {
+      size += busyRanges.size();
+    }
+
+    long[] endpoints = new long[size * 2];
+    int count = addEndpoints(blockedRanges, duration, endOfStarts, BLOCKED_CONFLICT,
+        BLOCKED_FREE_AGAIN, endpoints, 0);
+    for (IntervalSet busyRanges : busyRangesByAttendee) {
+      count = addEndpoints(busyRanges, duration, endOfStarts, ATTENDEE_CONFLICT,
+          ATTENDEE_FREE_AGAIN, endpoints, count);
+    }
+    Arrays.sort(endpoints, 0, count);
+
+    int conflicts = 0;
+    int blocked = 0;
+    int segmentStart = 0;
+    int i = 0;
+    while (i < count) {
+      int minute = (int) (endpoints[i] >> 2);
+
+      if (minute > segmentStart && blocked == 0) {
+        segments.add(new Segment(segmentStart, minute, conflicts));
+      }
+
+      // Apply every endpoint at this minute before starting the next run.
+      while (i < count && (int) (endpoints[i] >> 2) == minute) {
+        switch ((int) (endpoints[i] & 3)) {
+          case ATTENDEE_FREE_AGAIN: conflicts--; break;
+          case ATTENDEE_CONFLICT: conflicts++; break;
+          case BLOCKED_FREE_AGAIN: blocked--; break;
+          default: blocked++; break;
+        }
+        i++;
+      }
+      segmentStart = minute;
+    }
+
+    if (segmentStart < endOfStarts && blocked == 0) {
+      segments.add(new Segment(segmentStart, endOfStarts, conflicts));
+    }
+
+    return segments.build();
+  }
+
+  /**
+   * Turns busy ranges into the sorted, merged start times they conflict with and writes the
+   * encoded endpoints into {@code endpoints} starting at {@code count}. Returns the new count.
+   */
+  private static int addEndpoints(IntervalSet busyRanges, long duration, int endOfStarts,
+      int conflictKind, int freeKind, long[] endpoints, int count) {
+    int runStart = -1;
+    int runEnd = -1;
+
+    for (int i = 0; i < busyRanges.size(); i++) {
+      int start = (int) Math.max(0, busyRanges.start(i) - duration + 1);
+      int end = Math.min(busyRanges.end(i), endOfStarts);
+      if (start >= end) {
+        continue;
+      }
+
+      if (start > runEnd) {
+        if (runEnd > runStart) {
+          endpoints[count++] = encode(runStart, conflictKind);
+          endpoints[count++] = encode(runEnd, freeKind);
+        }
+        runStart = start;
+      }
+      runEnd = Math.max(runEnd, end);
+    }
+
+    if (runEnd > runStart) {
+      endpoints[count++] = encode(runStart, conflictKind);
+      endpoints[count++] = encode(runEnd, freeKind);
+    }
+    return count;
+  }
+
+  private static long encode(int minute, int kind) {
+    return ((long) minute << 2) | kind;
+  }
+}
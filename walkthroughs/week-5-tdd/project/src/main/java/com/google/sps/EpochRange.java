@@ -0,0 +1,142 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/**
+ * Span of time that is not tied to a single day. Where {@link TimeRange} counts minutes from the
+ * start of one day, {@code EpochRange} counts minutes from the start of 1970-01-01, so a range can
+ * cover any number of days.
+ *
+ * <p>Like {@link TimeRange}, minutes are wall-clock minutes on the calendar, in whatever zone the
+ * calendar is kept in, not UTC. Minute {@code d * MINUTES_PER_DAY} is midnight at the start of
+ * epoch day {@code d} in that zone, so every day has exactly {@link #MINUTES_PER_DAY} minutes, even
+ * on days when the clocks change.
+ */
+public final class EpochRange {
+  public static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  /**
+   * A comparator for sorting ranges by their start time in ascending order.
+   */
+  public static final Comparator<EpochRange> ORDER_BY_START = new Comparator<EpochRange>() {
+    @Override
+    public int compare(EpochRange a, EpochRange b) {
+      return Long.compare(a.start, b.start);
+    }
+  };
+
+  private final long start;
+  private final long end;
+
+  private EpochRange(long start, long end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Returns the start of the range in minutes since the epoch.
+   */
+  public long start() {
+    return start;
+  }
+
+  /**
+   * Returns the end of the range in minutes since the epoch. This ending value is the closing
+   * exclusive bound.
+   */
+  public long end() {
+    return end;
+  }
+
+  /**
+   * Returns the number of minutes between the start and end.
+   */
+  public long duration() {
+    return end - start;
+  }
+
+  /**
+   * Checks if two ranges overlap. Like {@link TimeRange#overlaps}, a range with no duration only
+   * overlaps ranges that contain it.
+   */
+  public boolean overlaps(EpochRange other) {
+    return this.contains(other.start) || other.contains(this.start);
+  }
+
+  /**
+   * Checks if {@code point} falls within this range. The end of the range is exclusive.
+   */
+  public boolean contains(long point) {
+    return start <= point && point < end;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof EpochRange && equals(this, (EpochRange) other);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(start) ^ Long.hashCode(end);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Range: [%d, %d)", start, end);
+  }
+
+  private static boolean equals(EpochRange a, EpochRange b) {
+    return a.start == b.start && a.end == b.end;
+  }
+
+  /**
+   * Creates a range from {@code start} (inclusive) to {@code end} (exclusive), both in minutes
+   * since the epoch.
+   */
+  public static EpochRange fromStartEnd(long start, long end) {
+    if (end < start) {
+      throw new IllegalArgumentException("end cannot come before start");
+    }
+
+    return new EpochRange(start, end);
+  }
+
+  /**
+   * Creates a range starting at {@code start} minutes since the epoch with a duration equal to
+   * {@code duration}.
+   */
+  public static EpochRange fromStartDuration(long start, long duration) {
+    return fromStartEnd(start, start + duration);
+  }
+
+  /**
+   * Creates the range covering whole days, from the start of {@code firstEpochDay} to the end of
+   * {@code lastEpochDay} (inclusive). Days are counted from the epoch, as in
+   * {@code LocalDate.toEpochDay()}.
+   */
+  public static EpochRange fromDays(long firstEpochDay, long lastEpochDay) {
+    return fromStartEnd(firstEpochDay * MINUTES_PER_DAY, (lastEpochDay + 1) * MINUTES_PER_DAY);
+  }
+
+  /**
+   * Places a {@link TimeRange} on the day {@code epochDay} days after the epoch.
+   */
+  public static EpochRange onDay(long epochDay, TimeRange range) {
+    return fromStartEnd(epochDay * MINUTES_PER_DAY + range.start(),
+        epochDay * MINUTES_PER_DAY + range.end());
+  }
+}
@@ -14,6 +14,7 @@
 
 package com.google.sps;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -26,7 +27,10 @@ import java.util.Set;
 public final class Event {
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+
+  // Sorted IDs from {@link AttendeeRegistry}. Much smaller than a set of strings, and checking for
+  // shared attendees is a merge of two sorted arrays.
+  private final int[] attendeeIds;
 
   /**
    * Creates a new event.
@@ -50,7 +54,17 @@ public final class Event {
 
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+    this.attendeeIds = AttendeeRegistry.getInstance().internAll(attendees);
+  }
+
+  /**
+   * Creates an event from attendee IDs that are already sorted and free of duplicates, without
+   * looking any names up. The array is not copied, so the caller must not change it afterwards.
+   */
+  Event(String title, TimeRange when, int[] sortedAttendeeIds) {
+    this.title = title;
+    this.when = when;
+    this.attendeeIds = sortedAttendeeIds;
   }
 
   /**
@@ -68,14 +82,57 @@ public final class Event {
   }
 
   /**
-   * Returns a read-only set of required attendees for this event.
+   * Returns a read-only set of required attendees for this event. The set is built on every call;
+   * code that runs often should use {@link #getAttendeeCount} and {@link #getAttendeeId} instead.
    */
   public Set<String> getAttendees() {
-    // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    Set<String> attendees = new HashSet<>();
+    for (int id : attendeeIds) {
+      attendees.add(registry.getName(id));
+    }
+
+    // Return the attendees as an unmodifiable set so that the caller can't change it and expect
+    // this event to change too.
     return Collections.unmodifiableSet(attendees);
   }
 
+  /**
+   * Returns the number of attendees of this event.
+   */
+  public int getAttendeeCount() {
+    return attendeeIds.length;
+  }
+
+  /**
+   * Returns the {@link AttendeeRegistry} ID of the {@code index}th attendee. IDs are in ascending
+   * order.
+   */
+  public int getAttendeeId(int index) {
+    return attendeeIds[index];
+  }
+
+  /**
+   * Returns whether any of the people in {@code sortedIds} attend this event.
+   *
+   * @param sortedIds {@link AttendeeRegistry} IDs in ascending order.
+   */
+  public boolean hasAnyAttendee(int[] sortedIds) {
+    int i = 0;
+    int j = 0;
+    while (i < attendeeIds.length && j < sortedIds.length) {
+      if (attendeeIds[i] == sortedIds[j]) {
+        return true;
+      }
+      if (attendeeIds[i] < sortedIds[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return false;
+  }
+
   @Override
   public int hashCode() {
     // For the hash code, just use the title. Most events "should" have different names and will
@@ -89,8 +146,8 @@ public final class Event {
   }
 
   private static boolean equals(Event a, Event b) {
-    // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
-    // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    // The IDs are sorted and free of duplicates, so equal arrays mean equal sets of attendees.
+    return a.title.equals(b.title) && a.when.equals(b.when)
+        && Arrays.equals(a.attendeeIds, b.attendeeIds);
   }
 }
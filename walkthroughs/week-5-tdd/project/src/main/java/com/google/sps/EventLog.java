@@ -0,0 +1,365 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file of every event added to or removed from the calendar, so the calendar survives a
+ * restart. Opening a log memory-maps it and replays it, which takes no parsing beyond reading a few
+ * numbers per event.
+ *
+ * <p>The file is a sequence of records, each starting with a one-byte kind:
+ *
+ * <ul>
+ *   <li>{@code STRING}: an {@code int} length and that many bytes of UTF-8. Strings are numbered in
+ *       the order they appear, starting at 0, and are written before their first use.
+ *   <li>{@code ADD} and {@code REMOVE}: a {@code short} start and a {@code short} duration in
+ *       minutes, the {@code int} number of the title string, an {@code int} attendee count and
+ *       the {@code int} number of each attendee's name.
+ *   <li>{@code SHORT_ADD} and {@code SHORT_REMOVE}: the same, but with an unsigned {@code short}
+ *       attendee count. Older logs have these; they are read but no longer written.
+ * </ul>
+ *
+ * <p>Appends reach the operating system before they return, so they survive the process crashing
+ * but not necessarily the machine. A record cut short by a crash is dropped the next time the log
+ * is opened.
+ */
+public final class EventLog implements Closeable {
+  private static final byte STRING = 1;
+  private static final byte SHORT_ADD = 2;
+  private static final byte SHORT_REMOVE = 3;
+  private static final byte ADD = 4;
+  private static final byte REMOVE = 5;
+
+  private final FileChannel channel;
+
+  // Number of strings in the log.
+  private int stringCount;
+
+  // Number of the strings worth reusing: every attendee name, and titles written since the log was
+  // opened. Old titles are left out so that opening a big log doesn't build a map of them all; a
+  // title that comes up again is just written again. Only used while holding the lock.
+  private final Map<String, Integer> stringNumbers;
+
+  private final ImmutableList<Event> replayedEvents;
+
+  private EventLog(FileChannel channel, int stringCount, Map<String, Integer> stringNumbers,
+      ImmutableList<Event> replayedEvents) {
+    this.channel = channel;
+    this.stringCount = stringCount;
+    this.stringNumbers = stringNumbers;
+    this.replayedEvents = replayedEvents;
+  }
+
+  /**
+   * Opens the log at {@code path}, creating an empty one if there is no file yet, and replays it.
+   *
+   * @throws IOException if the file cannot be read or is not an event log
+   */
+  public static EventLog open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("event log is too large to map: " + path);
+      }
+
+      Replay replay = new Replay();
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      int end = replay.run(buffer);
+      if (end < channel.size()) {
+        channel.truncate(end);
+      }
+      channel.position(end);
+
+      return new EventLog(channel, replay.stringCount(), replay.attendeeNumbers(), replay.events());
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the events on the calendar when the log was opened, in the order they were added.
+   */
+  public ImmutableList<Event> getReplayedEvents() {
+    return replayedEvents;
+  }
+
+  /**
+   * Records that {@code event} was added to the calendar.
+   */
+  public void appendAdd(Event event) throws IOException {
+    append(ADD, event);
+  }
+
+  /**
+   * Records that one event equal to {@code event} was removed from the calendar.
+   */
+  public void appendRemove(Event event) throws IOException {
+    append(REMOVE, event);
+  }
+
+  /**
+   * Flushes everything appended so far to the storage device and closes the file.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      channel.force(false);
+    } finally {
+      channel.close();
+    }
+  }
+
+  private synchronized void append(byte kind, Event event) throws IOException {
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+
+    // Strings this record needs that the log doesn't have yet. They only count as written once the
+    // whole record is.
+    List<String> newStrings = new ArrayList<>();
+    int titleNumber = number(event.getTitle(), newStrings);
+    int[] attendeeNumbers = new int[event.getAttendeeCount()];
+    for (int i = 0; i < attendeeNumbers.length; i++) {
+      attendeeNumbers[i] = number(registry.getName(event.getAttendeeId(i)), newStrings);
+    }
+
+    List<byte[]> encodedStrings = new ArrayList<>(newStrings.size());
+    int size = 1 + 2 + 2 + 4 + 4 + 4 * attendeeNumbers.length;
+    for (String string : newStrings) {
+      byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+      encodedStrings.add(encoded);
+      size += 1 + 4 + encoded.length;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (byte[] encoded : encodedStrings) {
+      buffer.put(STRING).putInt(encoded.length).put(encoded);
+    }
+    buffer.put(kind)
+        .putShort((short) event.getWhen().start())
+        .putShort((short) event.getWhen().duration())
+        .putInt(titleNumber)
+        .putInt(attendeeNumbers.length);
+    for (int attendeeNumber : attendeeNumbers) {
+      buffer.putInt(attendeeNumber);
+    }
+    buffer.flip();
+
+    long recordStart = channel.position();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      // Don't leave half a record for the next append to follow.
+      channel.truncate(recordStart);
+      channel.position(recordStart);
+      throw e;
+    }
+    for (String string : newStrings) {
+      stringNumbers.put(string, stringCount++);
+    }
+  }
+
+  /**
+   * Returns the number {@code string} has or will have once {@code newStrings} are written, adding
+   * it to {@code newStrings} if it is not in the log yet.
+   */
+  private int number(String string, List<String> newStrings) {
+    Integer number = stringNumbers.get(string);
+    if (number != null) {
+      return number;
+    }
+
+    int index = newStrings.indexOf(string);
+    if (index < 0) {
+      index = newStrings.size();
+      newStrings.add(string);
+    }
+    return stringCount + index;
+  }
+
+  /**
+   * State of one replay of a log file.
+   */
+  private static final class Replay {
+    private final List<String> strings = new ArrayList<>();
+
+    // AttendeeRegistry ID of each string, or -1 if it hasn't been used as an attendee yet.
+    private int[] attendeeIds = new int[0];
+
+    // Every event added so far, with null in place of the ones removed again.
+    private final List<Event> events = new ArrayList<>();
+
+    // Positions in events of every event that hasn't been removed. Only built once the first
+    // removal is replayed, since most logs are mostly additions.
+    private Map<Event, Deque<Integer>> positions = null;
+
+    /**
+     * Replays every complete record in {@code buffer}. Returns the position just after the last
+     * complete record.
+     */
+    private int run(ByteBuffer buffer) throws IOException {
+      int end = 0;
+      try {
+        while (buffer.hasRemaining()) {
+          byte kind = buffer.get();
+          if (kind == STRING) {
+            readString(buffer);
+          } else if (kind == ADD || kind == REMOVE || kind == SHORT_ADD || kind == SHORT_REMOVE) {
+            boolean shortCount = kind == SHORT_ADD || kind == SHORT_REMOVE;
+            Event event = readEvent(buffer, shortCount);
+            if (kind == ADD || kind == SHORT_ADD) {
+              add(event);
+            } else {
+              remove(event);
+            }
+          } else {
+            throw new IOException("not an event log record at offset " + end);
+          }
+          end = buffer.position();
+        }
+      } catch (BufferUnderflowException e) {
+        // The last record was cut short while it was being written.
+      }
+      return end;
+    }
+
+    private void readString(ByteBuffer buffer) throws IOException {
+      int length = buffer.getInt();
+      if (length < 0) {
+        throw new IOException("negative string length at offset " + buffer.position());
+      }
+
+      byte[] encoded = new byte[length];
+      buffer.get(encoded);
+      strings.add(new String(encoded, StandardCharsets.UTF_8));
+    }
+
+    private Event readEvent(ByteBuffer buffer, boolean shortCount) throws IOException {
+      int start = buffer.getShort();
+      int duration = buffer.getShort();
+      String title = string(buffer.getInt());
+
+      int count = shortCount ? Short.toUnsignedInt(buffer.getShort()) : buffer.getInt();
+      if (count < 0) {
+        throw new IOException("negative attendee count at offset " + buffer.position());
+      }
+      if (count > buffer.remaining() / 4) {
+        // The record was cut short; don't allocate for attendees that aren't there.
+        throw new BufferUnderflowException();
+      }
+
+      int[] ids = new int[count];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = attendeeId(buffer.getInt());
+      }
+      // IDs are only stable within a process, so the order they were written in means nothing now.
+      Arrays.sort(ids);
+
+      return new Event(title, TimeRange.fromStartDuration(start, duration), ids);
+    }
+
+    private String string(int number) throws IOException {
+      if (number < 0 || number >= strings.size()) {
+        throw new IOException("reference to unknown string " + number);
+      }
+      return strings.get(number);
+    }
+
+    private int attendeeId(int number) throws IOException {
+      String name = string(number);
+      if (number >= attendeeIds.length) {
+        int oldLength = attendeeIds.length;
+        attendeeIds = Arrays.copyOf(attendeeIds, Math.max(oldLength * 2, number + 64));
+        Arrays.fill(attendeeIds, oldLength, attendeeIds.length, -1);
+      }
+      if (attendeeIds[number] < 0) {
+        attendeeIds[number] = AttendeeRegistry.getInstance().intern(name);
+      }
+      return attendeeIds[number];
+    }
+
+    private void add(Event event) {
+      if (positions != null) {
+        positions.computeIfAbsent(event, e -> new ArrayDeque<>()).add(events.size());
+      }
+      events.add(event);
+    }
+
+    private void remove(Event event) {
+      if (positions == null) {
+        positions = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+          positions.computeIfAbsent(events.get(i), e -> new ArrayDeque<>()).add(i);
+        }
+      }
+
+      // Same as EventStore.remove: the earliest equal event goes.
+      Deque<Integer> equalEvents = positions.get(event);
+      if (equalEvents != null) {
+        events.set(equalEvents.poll(), null);
+        if (equalEvents.isEmpty()) {
+          positions.remove(event);
+        }
+      }
+    }
+
+    private int stringCount() {
+      return strings.size();
+    }
+
+    /**
+     * Returns the number of every string used as an attendee name.
+     */
+    private Map<String, Integer> attendeeNumbers() {
+      Map<String, Integer> numbers = new HashMap<>();
+      for (int i = 0; i < attendeeIds.length && i < strings.size(); i++) {
+        if (attendeeIds[i] >= 0) {
+          numbers.put(strings.get(i), i);
+        }
+      }
+      return numbers;
+    }
+
+    private ImmutableList<Event> events() {
+      ImmutableList.Builder<Event> remaining = ImmutableList.builder();
+      for (Event event : events) {
+        if (event != null) {
+          remaining.add(event);
+        }
+      }
+      return remaining.build();
+    }
+  }
+}
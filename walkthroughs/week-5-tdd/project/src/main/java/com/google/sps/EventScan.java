@@ -0,0 +1,109 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the busy times of a group of attendees by scanning every event, for callers that have no
+ * {@link BusyIndex}. Large collections are split into chunks that are filtered and merged on
+ * several threads, and the chunks' results are then merged pairwise.
+ */
+public final class EventScan {
+  /**
+   * Collections with at least this many events are scanned in parallel. Below it, starting tasks
+   * costs more than it saves; see EventScanBenchmark in the benchmarks module.
+   */
+  public static final int PARALLEL_THRESHOLD = 50_000;
+
+  // Events each task filters by itself instead of splitting further.
+  private static final int CHUNK_SIZE = 8_192;
+
+  private EventScan() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the times at least one attendee in {@code attendeeIds} is busy, scanning in parallel if
+   * there are enough events and processors to make it worthwhile.
+   *
+   * @param attendeeIds {@link AttendeeRegistry} IDs in ascending order.
+   */
+  public static IntervalSet findBusyIntervals(Collection<Event> events, int[] attendeeIds) {
+    if (events.size() >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+      return findBusyIntervalsParallel(events, attendeeIds);
+    }
+    return findBusyIntervalsSequential(events, attendeeIds);
+  }
+
+  /**
+   * Same as {@link #findBusyIntervals}, always on the calling thread.
+   */
+  public static IntervalSet findBusyIntervalsSequential(Collection<Event> events, int[] attendeeIds) {
+    IntervalSet.Builder busyIntervals = new IntervalSet.Builder();
+    for (Event event : events) {
+      if (event.hasAnyAttendee(attendeeIds)) {
+        busyIntervals.add(event.getWhen());
+      }
+    }
+    return busyIntervals.build();
+  }
+
+  /**
+   * Same as {@link #findBusyIntervals}, always split across the common fork-join pool.
+   */
+  public static IntervalSet findBusyIntervalsParallel(Collection<Event> events, int[] attendeeIds) {
+    Event[] array = events.toArray(new Event[0]);
+    return ForkJoinPool.commonPool().invoke(new ScanTask(array, 0, array.length, attendeeIds));
+  }
+
+  /**
+   * Scans {@code events[from, to)}, splitting in halves until the pieces are small enough.
+   */
+  private static final class ScanTask extends RecursiveTask<IntervalSet> {
+    private final Event[] events;
+    private final int from;
+    private final int to;
+    private final int[] attendeeIds;
+
+    private ScanTask(Event[] events, int from, int to, int[] attendeeIds) {
+      this.events = events;
+      this.from = from;
+      this.to = to;
+      this.attendeeIds = attendeeIds;
+    }
+
+    @Override
+    protected IntervalSet compute() {
+      if (to - from <= CHUNK_SIZE) {
+        IntervalSet.Builder busyIntervals = new IntervalSet.Builder();
+        for (int i = from; i < to; i++) {
+          if (events[i].hasAnyAttendee(attendeeIds)) {
+            busyIntervals.add(events[i].getWhen());
+          }
+        }
+        return busyIntervals.build();
+      }
+
+      int middle = (from + to) >>> 1;
+      ScanTask left = new ScanTask(events, from, middle, attendeeIds);
+      left.fork();
+      IntervalSet right = new ScanTask(events, middle, to, attendeeIds).compute();
+      return left.join().union(right);
+    }
+  }
+}
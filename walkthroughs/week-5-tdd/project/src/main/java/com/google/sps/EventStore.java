@@ -0,0 +1,323 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * The events on the calendar, which can be added and removed while queries are running. Every
+ * change publishes a new immutable {@link Snapshot}; readers take the current snapshot without
+ * locking and keep working on it, so they never wait for a writer and never see half of a change.
+ *
+ * <p>Writers take turns. Each change copies the list of events and the busy-time map of the index,
+ * but shares the busy times of every attendee the change does not touch. Use {@link #addAll} to add
+ * many events at once, e.g. when seeding or importing a calendar, so they are copied only once.
+ *
+ * <p>A store created from an {@link EventLog} writes every change to the log before making it.
+ */
+public final class EventStore {
+
+  /**
+   * Called after every change, with the event that was added or removed and the snapshot that
+   * contains the change.
+   */
+  public interface ChangeListener {
+    void eventChanged(Event event, Snapshot snapshot);
+  }
+
+  // Only used by writers, while holding the lock.
+  private final List<Event> events;
+  private final BusyIndex busyIndex;
+
+  // Null if changes are not persisted.
+  private final EventLog log;
+
+  private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+  private volatile Snapshot current;
+
+  /**
+   * Creates an empty store.
+   */
+  public EventStore() {
+    this(ImmutableList.of());
+  }
+
+  /**
+   * Creates a store containing every event in {@code events}.
+   */
+  public EventStore(Collection<Event> events) {
+    this(events, null);
+  }
+
+  /**
+   * Creates a store containing the events replayed from {@code log}, which records every later
+   * change.
+   */
+  public EventStore(EventLog log) {
+    this(log.getReplayedEvents(), log);
+  }
+
+  private EventStore(Collection<Event> events, EventLog log) {
+    this.log = log;
+    this.events = new ArrayList<>(events);
+    this.busyIndex = new BusyIndex(events);
+    this.current = new Snapshot(ImmutableList.copyOf(events), busyIndex.snapshot(), null, 0);
+  }
+
+  /**
+   * Returns the events and busy times as of the last completed change.
+   */
+  public Snapshot snapshot() {
+    return current;
+  }
+
+  /**
+   * Adds {@code event} to the calendar.
+   *
+   * @throws UncheckedIOException if the change could not be written to the log. The calendar is
+   *     not changed in that case.
+   */
+  public void add(Event event) {
+    Snapshot snapshot;
+    synchronized (this) {
+      if (log != null) {
+        try {
+          log.appendAdd(event);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      events.add(event);
+      busyIndex.add(event);
+      IntervalTree<Event> eventsByTime = current.eventsByTime;
+      snapshot = publish(ImmutableList.copyOf(events),
+          eventsByTime == null ? null : eventsByTime.with(rangeOf(event), event));
+    }
+    notifyListeners(event, snapshot);
+  }
+
+  /**
+   * Adds every event in {@code newEvents} to the calendar, publishing a single snapshot that
+   * contains all of them. Listeners are called once per event, each time with that snapshot.
+   *
+   * @throws UncheckedIOException if one of the events could not be written to the log. The events
+   *     before it are added, the rest are not.
+   */
+  public void addAll(Collection<Event> newEvents) {
+    List<Event> added = new ArrayList<>(newEvents.size());
+    UncheckedIOException failure = null;
+    Snapshot snapshot = null;
+    synchronized (this) {
+      for (Event event : newEvents) {
+        if (log != null) {
+          try {
+            log.appendAdd(event);
+          } catch (IOException e) {
+            failure = new UncheckedIOException(e);
+            break;
+          }
+        }
+        events.add(event);
+        busyIndex.add(event);
+        added.add(event);
+      }
+
+      if (!added.isEmpty()) {
+        IntervalTree<Event> eventsByTime = current.eventsByTime;
+        if (eventsByTime != null) {
+          for (Event event : added) {
+            eventsByTime = eventsByTime.with(rangeOf(event), event);
+          }
+        }
+        snapshot = publish(ImmutableList.copyOf(events), eventsByTime);
+      }
+    }
+
+    notifyListeners(added, snapshot);
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Removes one event equal to {@code event} from the calendar. Returns false if there was none.
+   *
+   * @throws UncheckedIOException if the change could not be written to the log. The calendar is
+   *     not changed in that case.
+   */
+  public boolean remove(Event event) {
+    Snapshot snapshot;
+    synchronized (this) {
+      int index = events.indexOf(event);
+      if (index < 0) {
+        return false;
+      }
+      if (log != null) {
+        try {
+          log.appendRemove(event);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      events.remove(index);
+      busyIndex.remove(event);
+      IntervalTree<Event> eventsByTime = current.eventsByTime;
+      snapshot = publish(ImmutableList.copyOf(events),
+          eventsByTime == null ? null : eventsByTime.without(rangeOf(event), event));
+    }
+    notifyListeners(event, snapshot);
+    return true;
+  }
+
+  /**
+   * Starts reporting group lookups in every later snapshot to {@code tracker}. Each group the
+   * tracker finds to be hot has its merged busy times kept up to date in every snapshot from
+   * shortly after that on, until the tracker demotes it.
+   */
+  public synchronized void trackHotGroups(HotGroupTracker tracker) {
+    busyIndex.setHotGroupTracker(tracker);
+    // Readers find hot groups, and must not wait for the writer lock, so update the index on a
+    // thread of the store's own, which is the only one that waits for writers. Each update asks
+    // the tracker where the group stands, since it may have changed again since.
+    ExecutorService updater = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("hot-group-updater-%d")
+        .setDaemon(true)
+        .build());
+    Consumer<ImmutableSortedSet<String>> update =
+        group -> updater.execute(() -> updateHotGroup(tracker, group));
+    tracker.setPromotionListener(update);
+    tracker.setDemotionListener(update);
+    publish(current.events, current.eventsByTime);
+  }
+
+  private synchronized void updateHotGroup(
+      HotGroupTracker tracker, ImmutableSortedSet<String> group) {
+    if (tracker.isHot(group)) {
+      busyIndex.materialize(group);
+    } else {
+      busyIndex.dematerialize(group);
+    }
+    publish(current.events, current.eventsByTime);
+  }
+
+  /**
+   * Calls {@code listener} after every later change.
+   */
+  public void addChangeListener(ChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  private Snapshot publish(ImmutableList<Event> events, IntervalTree<Event> eventsByTime) {
+    current = new Snapshot(events, busyIndex.snapshot(), eventsByTime, current.version + 1);
+    return current;
+  }
+
+  private static EpochRange rangeOf(Event event) {
+    return rangeOf(event.getWhen());
+  }
+
+  // Events are all on the same day, so any day will do.
+  private static EpochRange rangeOf(TimeRange when) {
+    return EpochRange.onDay(0, when);
+  }
+
+  private void notifyListeners(List<Event> events, Snapshot snapshot) {
+    for (Event event : events) {
+      notifyListeners(event, snapshot);
+    }
+  }
+
+  private void notifyListeners(Event event, Snapshot snapshot) {
+    for (ChangeListener listener : listeners) {
+      listener.eventChanged(event, snapshot);
+    }
+  }
+
+  /**
+   * The calendar as of one point in time. Snapshots never change.
+   */
+  public static final class Snapshot {
+    private final ImmutableList<Event> events;
+    private final BusyIndex busyIndex;
+    private final long version;
+
+    // Built by the first call to findOverlapping, so that starting up doesn't pay for it. Once
+    // built, the store updates it for every later snapshot instead of building it again.
+    private volatile IntervalTree<Event> eventsByTime;
+
+    private Snapshot(ImmutableList<Event> events, BusyIndex busyIndex,
+        IntervalTree<Event> eventsByTime, long version) {
+      this.events = events;
+      this.busyIndex = busyIndex;
+      this.eventsByTime = eventsByTime;
+      this.version = version;
+    }
+
+    /**
+     * Returns every event, in the order they were added.
+     */
+    public ImmutableList<Event> getEvents() {
+      return events;
+    }
+
+    /**
+     * Returns a read-only index of the busy times of {@link #getEvents}.
+     */
+    public BusyIndex getBusyIndex() {
+      return busyIndex;
+    }
+
+    /**
+     * Returns every event that shares at least one minute with {@code window}, sorted by start
+     * time. A window with no duration finds the events going on at its start. Costs one
+     * {@link IntervalTree#findOverlapping} search, apart from the first call, which builds the
+     * index.
+     */
+    public ImmutableList<Event> findOverlapping(TimeRange window) {
+      IntervalTree<Event> eventsByTime = this.eventsByTime;
+      if (eventsByTime == null) {
+        // Racing readers may each build it; they all build the same tree.
+        eventsByTime = IntervalTree.copyOf(events, EventStore::rangeOf);
+        this.eventsByTime = eventsByTime;
+      }
+
+      ImmutableList.Builder<Event> overlapping = ImmutableList.builder();
+      for (IntervalTree.Entry<Event> entry : eventsByTime.findOverlapping(rangeOf(window))) {
+        overlapping.add(entry.value());
+      }
+      return overlapping.build();
+    }
+
+    /**
+     * Returns the number of snapshots the store published before this one. Later snapshots have
+     * larger versions.
+     */
+    public long getVersion() {
+      return version;
+    }
+  }
+}
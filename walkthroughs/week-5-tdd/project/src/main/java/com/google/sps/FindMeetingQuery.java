@@ -15,9 +15,13 @@
 package com.google.sps;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
 
 
 public final class FindMeetingQuery {
@@ -26,85 +30,209 @@ public final class FindMeetingQuery {
    * Return all possible time ranges to hold a meeting of specific duration.
   */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    // Counting optional attendees needs each person's busy times, so index the events once.
+    if (request.shouldMaximizeOptionalAttendees() && !request.getOptionalAttendees().isEmpty()) {
+      return findRangesForMostOptionalAttendees(new BusyIndex(events), request);
+    }
+
+    Collection<TimeRange> freeRanges = query(attendees -> findBusyIntervals(attendees, events), request);
+    if (freeRanges.isEmpty() && request.getLeastConflictSlots() > 0) {
+      return findLeastConflictSlots(new BusyIndex(events), request);
+    }
+    return freeRanges;
+  }
+
+  /** 
+   * Return all possible time ranges to hold a meeting of specific duration.
+   * Busy times are looked up in {@code index} instead of scanning every event.
+  */
+  public Collection<TimeRange> query(BusyIndex index, MeetingRequest request) {
+    if (request.shouldMaximizeOptionalAttendees() && !request.getOptionalAttendees().isEmpty()) {
+      return findRangesForMostOptionalAttendees(index, request);
+    }
+
+    Collection<TimeRange> freeRanges = query(index::findBusyIntervals, request);
+    if (freeRanges.isEmpty() && request.getLeastConflictSlots() > 0) {
+      return findLeastConflictSlots(index, request);
+    }
+    return freeRanges;
+  }
+
+  /** 
+   * Returns the same ranges as {@link #query(BusyIndex, MeetingRequest)}, earliest first, but only
+   * finds each one when the caller asks for it. Callers that stop after the first few ranges skip
+   * the work of finding the rest.
+  */
+  public Iterator<TimeRange> iterate(BusyIndex index, MeetingRequest request) {
+    // Finding the most optional attendees has to see the whole day before it knows the answer.
+    if (request.shouldMaximizeOptionalAttendees() && !request.getOptionalAttendees().isEmpty()) {
+      return findRangesForMostOptionalAttendees(index, request).iterator();
+    }
+
+    List<IntervalSet> busyIntervalsForMandatoryAttendees = findBusyIntervalsByAttendee(index, request.getAttendees());
+
+    if (!request.getOptionalAttendees().isEmpty()) {
+      List<IntervalSet> busyIntervalsForAllAttendees = new ArrayList<>(busyIntervalsForMandatoryAttendees);
+      busyIntervalsForAllAttendees.addAll(findBusyIntervalsByAttendee(index, request.getOptionalAttendees()));
+      Iterator<TimeRange> freeRangesForAllAttendees = new FreeSlotIterator(busyIntervalsForAllAttendees, request.getDuration());
+
+      // One range that works for everybody is enough to know optional attendees can be included
+      if (freeRangesForAllAttendees.hasNext() || request.getAttendees().isEmpty()) {
+        return freeRangesForAllAttendees;
+      }
+    }
+
+    Iterator<TimeRange> freeRanges = new FreeSlotIterator(busyIntervalsForMandatoryAttendees, request.getDuration());
+    if (!freeRanges.hasNext() && request.getLeastConflictSlots() > 0) {
+      return findLeastConflictSlots(index, request).iterator();
+    }
+    return freeRanges;
+  }
+
+  /** 
+   * Return all possible time ranges to hold a meeting of specific duration.
+   * {@code busyIntervalsFor} returns the times a group of attendees is busy.
+  */
+  private Collection<TimeRange> query(Function<Collection<String>, IntervalSet> busyIntervalsFor, MeetingRequest request) {
 
     // Find which times don't work for mandatory attendees
-    ImmutableList<TimeRange> sortedBusyRangesForMandatoryAttendees = findBusyRanges(request.getAttendees(), events);
+    IntervalSet busyIntervalsForMandatoryAttendees = busyIntervalsFor.apply(request.getAttendees());
 
     // Factor in optional attendees if there are any
     if (!request.getOptionalAttendees().isEmpty()) {
-      ImmutableList<TimeRange> freeRangesForAllAttendees = findFreeRangesAllAttendees(sortedBusyRangesForMandatoryAttendees, events, request);
+      IntervalSet busyIntervalsForOptionalAttendees = busyIntervalsFor.apply(request.getOptionalAttendees());
+      IntervalSet freeIntervalsForAllAttendees = findFreeIntervals(request,
+          busyIntervalsForMandatoryAttendees.union(busyIntervalsForOptionalAttendees));
 
       // Handles case where there are no mandatory attendees but optional attendees have no availability
-      if (freeRangesForAllAttendees.isEmpty() && request.getAttendees().isEmpty()) {
+      if (freeIntervalsForAllAttendees.isEmpty() && request.getAttendees().isEmpty()) {
         return Collections.emptyList();
       }
 
       // If more than on time slot exists to accommodate both mandatory & optional attendees, return that
-      if (!freeRangesForAllAttendees.isEmpty()) {
-        return freeRangesForAllAttendees;
+      if (!freeIntervalsForAllAttendees.isEmpty()) {
+        return freeIntervalsForAllAttendees.toTimeRanges();
       }
     }
 
     // Find which times work for mandatory attendees only, since no times worked for optional attendees
-    ImmutableList<TimeRange> freeRangesForMandatoryAttendees = findFreeRanges(request, sortedBusyRangesForMandatoryAttendees); 
+    return findFreeIntervals(request, busyIntervalsForMandatoryAttendees).toTimeRanges();
+  }
 
-    return freeRangesForMandatoryAttendees;
+  /** 
+   * Returns the times at least one of {@code attendees} is busy.
+   * Check all events for the day and add the times of events with any of the attendees.
+   * Very large collections are checked on several threads.
+  */
+  private IntervalSet findBusyIntervals(Collection<String> attendees, Collection<Event> events) {
+    int[] attendeeIds = AttendeeRegistry.getInstance().lookupAll(attendees);
+    return EventScan.findBusyIntervals(events, attendeeIds);
   }
 
   /** 
-   * Returns an ImmutableList of all busy TimeRanges sorted by start time.
-   * Check all events for the day and add TimeRanges of events with our mandatory attendees.
+   * Returns the busy times of each of {@code attendees}, unmerged so they can be merged lazily.
   */
-  private ImmutableList<TimeRange> findBusyRanges(Collection<String> attendees, Collection<Event> events) {
-    return events.stream()
-        .filter(event -> !Collections.disjoint(attendees, event.getAttendees()))
-        .map(Event::getWhen)
-        .sorted(TimeRange.ORDER_BY_START)
-        .collect(ImmutableList.toImmutableList());
+  private List<IntervalSet> findBusyIntervalsByAttendee(BusyIndex index, Collection<String> attendees) {
+    List<IntervalSet> busyIntervals = new ArrayList<>(attendees.size());
+    for (String attendee : attendees) {
+      busyIntervals.add(index.getBusyIntervals(attendee));
+    }
+    return busyIntervals;
   }
 
   /** 
-   * Returns an ImmutableList of all free TimeRanges.
-   * Finds free TimeRanges in between sorted, busy TimeRanges and takes duration into account.
+   * Returns the free times of the day that are long enough to hold the requested meeting.
   */
-  private ImmutableList<TimeRange> findFreeRanges(MeetingRequest request, ImmutableList<TimeRange> sortedBusyRanges) {
-    ImmutableList.Builder<TimeRange> freeRanges = ImmutableList.builder();
+  private IntervalSet findFreeIntervals(MeetingRequest request, IntervalSet busyIntervals) {
+    return busyIntervals.complementWithinDay().filterMinLength(request.getDuration());
+  }
 
-    int startFreeRange = TimeRange.START_OF_DAY;
+  /** 
+   * Returns an ImmutableList of the TimeRanges where the largest number of optional attendees can come.
+   * Every meeting of the requested duration that fits in one of the returned ranges works for all 
+   * mandatory attendees and for as many optional attendees as possible.
+  */
+  private ImmutableList<TimeRange> findRangesForMostOptionalAttendees(BusyIndex index, MeetingRequest request) {
+    List<IntervalSet> busyIntervalsByOptionalAttendee = new ArrayList<>();
+    for (String attendee : request.getOptionalAttendees()) {
+      busyIntervalsByOptionalAttendee.add(index.getBusyIntervals(attendee));
+    }
 
-    for (TimeRange sortedBusyRange : sortedBusyRanges) {
-      // Free range ends when a busy range starts
-      int endFreeRange = sortedBusyRange.start();
+    ImmutableList<ConflictSweep.Segment> segments = ConflictSweep.countConflicts(busyIntervalsByOptionalAttendee,
+        index.findBusyIntervals(request.getAttendees()), request.getDuration());
 
-      // Make sure we can fit the meeting in the potential range
-      if (request.getDuration() <= endFreeRange - startFreeRange){ 
-        freeRanges.add(TimeRange.fromStartEnd(startFreeRange, endFreeRange, false));
-      }
-      
-      // Handles overlapping cases
-      startFreeRange = Math.max(startFreeRange, sortedBusyRange.end());       
-    } 
+    int fewestConflicts = Integer.MAX_VALUE;
+    for (ConflictSweep.Segment segment : segments) {
+      fewestConflicts = Math.min(fewestConflicts, segment.conflicts);
+    }
 
-    // Add the rest of the day, assumming the meeting fits in that time
-    if (request.getDuration() < TimeRange.END_OF_DAY - startFreeRange){
-      freeRanges.add(TimeRange.fromStartEnd(startFreeRange, TimeRange.END_OF_DAY, true));
+    // Same as the all-or-nothing mode: with no mandatory attendees, a meeting nobody can attend is no option
+    ImmutableList.Builder<TimeRange> ranges = ImmutableList.builder();
+    if (segments.isEmpty() || (request.getAttendees().isEmpty() && fewestConflicts == request.getOptionalAttendees().size())) {
+      return ranges.build();
     }
 
-    return freeRanges.build();
+    // Join neighbouring runs of start times that share the fewest conflicts
+    int runStart = -1;
+    int runEnd = -1;
+    for (ConflictSweep.Segment segment : segments) {
+      if (segment.conflicts != fewestConflicts) {
+        continue;
+      }
+      if (segment.start != runEnd) {
+        if (runStart >= 0) {
+          ranges.add(TimeRange.fromStartEnd(runStart, (int) (runEnd - 1 + request.getDuration()), false));
+        }
+        runStart = segment.start;
+      }
+      runEnd = segment.end;
+    }
+    ranges.add(TimeRange.fromStartEnd(runStart, (int) (runEnd - 1 + request.getDuration()), false));
+
+    return ranges.build();
   }
 
-  /** 
-   * Returns an ImmutableList of all free TimeRanges.
-   * Finds free TimeRanges for both optional and mandatory attendess by considering spaces in between sorted, 
-   * busy TimeRanges and takes duration into account.
-  */
-  private ImmutableList<TimeRange> findFreeRangesAllAttendees(ImmutableList<TimeRange> sortedBusyRangesForMandatoryAttendees, Collection<Event> events, MeetingRequest request) {
-    ImmutableList<TimeRange> sortedBusyRangesForOptionalAttendees = findBusyRanges(request.getOptionalAttendees(), events);
+  /**
+   * Returns up to {@code request.getLeastConflictSlots()} meeting times of the requested duration,
+   * ordered by how many attendees, mandatory or optional, are busy for them and then by start time.
+   * Of each run of start times that are equally good, only the earliest is returned.
+   */
+  private ImmutableList<TimeRange> findLeastConflictSlots(BusyIndex index, MeetingRequest request) {
+    List<IntervalSet> busyIntervalsByAttendee = findBusyIntervalsByAttendee(index, request.getAttendees());
+    busyIntervalsByAttendee.addAll(findBusyIntervalsByAttendee(index, request.getOptionalAttendees()));
+
+    ImmutableList<ConflictSweep.Segment> segments = ConflictSweep.countConflicts(busyIntervalsByAttendee,
+        IntervalSet.empty(), request.getDuration());
+
+    // Each candidate is packed as conflicts << 32 | start, so smaller means better. The heap keeps
+    // the worst candidate on top so it can be dropped as soon as there are too many.
+    int slotCount = request.getLeastConflictSlots();
+    PriorityQueue<Long> best =
+        new PriorityQueue<>(Math.min(slotCount, segments.size()) + 1, Collections.reverseOrder());
+    ConflictSweep.Segment previous = null;
+    for (ConflictSweep.Segment segment : segments) {
+      boolean continuesRun = previous != null && previous.end == segment.start
+          && previous.conflicts == segment.conflicts;
+      previous = segment;
+      if (continuesRun) {
+        continue;
+      }
+
+      best.add(((long) segment.conflicts << 32) | segment.start);
+      if (best.size() > slotCount) {
+        best.poll();
+      }
+    }
 
-    ImmutableList busyRangesForAllAttendees = ImmutableList.sortedCopyOf(TimeRange.ORDER_BY_START, 
-          Iterables.concat(sortedBusyRangesForMandatoryAttendees, sortedBusyRangesForOptionalAttendees));
-    ImmutableList<TimeRange> freeRangesForAllAttendees = findFreeRanges(request, busyRangesForAllAttendees);
+    long[] ranked = new long[best.size()];
+    for (int i = ranked.length - 1; i >= 0; i--) {
+      ranked[i] = best.poll();
+    }
 
-    return freeRangesForAllAttendees;
+    ImmutableList.Builder<TimeRange> slots = ImmutableList.builder();
+    for (long candidate : ranked) {
+      slots.add(TimeRange.fromStartDuration((int) candidate, (int) request.getDuration()));
+    }
+    return slots.build();
   }
 }
@@ -0,0 +1,109 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.AbstractIterator;
+import java.util.Collection;
+import java.util.PriorityQueue;
+
+/**
+ * Walks the free ranges of the day that are at least {@code duration} long, earliest first,
+ * without computing them all up front. The busy times of several attendees are merged lazily with
+ * a heap, so returning the first free range only costs as much as the busy times before it.
+ */
+final class FreeSlotIterator extends AbstractIterator<TimeRange> {
+  private static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  private final long duration;
+
+  // The next unread interval of each set that has any left, ordered by its start.
+  private final PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+
+  // Start of the free time after every busy interval read so far.
+  private int freeStart = TimeRange.START_OF_DAY;
+
+  FreeSlotIterator(Collection<IntervalSet> busyIntervals, long duration) {
+    this.duration = duration;
+    for (IntervalSet intervals : busyIntervals) {
+      if (!intervals.isEmpty()) {
+        cursors.add(new Cursor(intervals));
+      }
+    }
+  }
+
+  @Override
+  protected TimeRange computeNext() {
+    while (!cursors.isEmpty()) {
+      Cursor cursor = cursors.poll();
+      int busyStart = cursor.start();
+      int busyEnd = cursor.end();
+      if (cursor.advance()) {
+        cursors.add(cursor);
+      }
+
+      // Nothing left in the heap starts before busyStart, so the gap before it is final.
+      int freeEnd = Math.min(busyStart, MINUTES_PER_DAY);
+      int gapStart = freeStart;
+      freeStart = Math.max(freeStart, busyEnd);
+      if (fits(gapStart, freeEnd)) {
+        return TimeRange.fromStartEnd(gapStart, freeEnd, false);
+      }
+    }
+
+    // Whatever is left of the day after the last busy interval.
+    int gapStart = freeStart;
+    freeStart = MINUTES_PER_DAY;
+    if (fits(gapStart, MINUTES_PER_DAY)) {
+      return TimeRange.fromStartEnd(gapStart, MINUTES_PER_DAY, false);
+    }
+    return endOfData();
+  }
+
+  private boolean fits(int start, int end) {
+    return end > start && end - start >= duration;
+  }
+
+  /**
+   * Position in one {@link IntervalSet}.
+   */
+  private static final class Cursor implements Comparable<Cursor> {
+    private final IntervalSet intervals;
+    private int position = 0;
+
+    private Cursor(IntervalSet intervals) {
+      this.intervals = intervals;
+    }
+
+    private int start() {
+      return intervals.start(position);
+    }
+
+    private int end() {
+      return intervals.end(position);
+    }
+
+    /**
+     * Moves to the next interval. Returns false if there is none.
+     */
+    private boolean advance() {
+      return ++position < intervals.size();
+    }
+
+    @Override
+    public int compareTo(Cursor other) {
+      return Integer.compare(start(), other.start());
+    }
+  }
+}
@@ -0,0 +1,255 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Counts how often each group of attendees is looked up in a {@link BusyIndex} and picks out the
+ * hot ones, e.g. a team that schedules its meetings all day long. A {@link BusyIndex} keeps the
+ * merged busy times of every hot group up to date as events change, so looking them up again is a
+ * single map lookup instead of merging every member's busy times.
+ *
+ * <p>Counts are only kept for a bounded number of groups. Every count is halved when there are too
+ * many groups, and also after a fixed number of lookups, and the groups that drop to zero are
+ * forgotten, so groups that used to be popular give way to the ones that are popular now. Hot groups
+ * keep being counted too: once there are as many hot groups as allowed, a group that has been
+ * looked up more often than the least popular hot group takes its place.
+ *
+ * <p>A tracker may count only a random sample of the lookups. Lookups that aren't counted don't need
+ * a sorted key for their group, so while no group is hot they cost the index nothing extra.
+ */
+public final class HotGroupTracker {
+  private static final int TRACKED_GROUPS_PER_HOT_GROUP = 16;
+
+  private final long promotionThreshold;
+  private final int maxHotGroups;
+  private final int maxTrackedGroups;
+  private final long decayPeriod;
+  private final int sampleEvery;
+
+  private final ConcurrentHashMap<ImmutableSortedSet<String>, AtomicLong> lookupCounts =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<ImmutableSortedSet<String>, AtomicLong> hotGroups =
+      new ConcurrentHashMap<>();
+
+  // Lookups since the counts were last halved.
+  private final AtomicLong lookupsSinceDecay = new AtomicLong();
+
+  private final LongAdder fastPathLookups = new LongAdder();
+  private final LongAdder slowPathLookups = new LongAdder();
+
+  private volatile Consumer<ImmutableSortedSet<String>> promotionListener = group -> {};
+  private volatile Consumer<ImmutableSortedSet<String>> demotionListener = group -> {};
+
+  /**
+   * Creates a tracker that makes a group hot once it has been looked up {@code promotionThreshold}
+   * times, keeping at most {@code maxHotGroups} hot groups at once.
+   */
+  public HotGroupTracker(long promotionThreshold, int maxHotGroups) {
+    this(promotionThreshold, maxHotGroups, 1);
+  }
+
+  /**
+   * Creates a tracker that counts about one in {@code sampleEvery} lookups, and makes a group hot
+   * once {@code promotionThreshold} of its lookups have been counted, keeping at most
+   * {@code maxHotGroups} hot groups at once.
+   */
+  public HotGroupTracker(long promotionThreshold, int maxHotGroups, int sampleEvery) {
+    if (promotionThreshold <= 0 || maxHotGroups <= 0 || sampleEvery <= 0) {
+      throw new IllegalArgumentException("threshold, maximum and sampling rate must be positive");
+    }
+
+    this.promotionThreshold = promotionThreshold;
+    this.maxHotGroups = maxHotGroups;
+    this.maxTrackedGroups = maxHotGroups * TRACKED_GROUPS_PER_HOT_GROUP;
+    this.decayPeriod = maxTrackedGroups * promotionThreshold;
+    this.sampleEvery = sampleEvery;
+  }
+
+  /**
+   * Returns the number of lookups that found a group's merged busy times ready.
+   */
+  public long getFastPathLookups() {
+    return fastPathLookups.sum();
+  }
+
+  /**
+   * Returns the number of lookups of groups of two or more that had to merge their members' busy
+   * times.
+   */
+  public long getSlowPathLookups() {
+    return slowPathLookups.sum();
+  }
+
+  /**
+   * Returns the number of groups that are hot right now.
+   */
+  public int getHotGroupCount() {
+    return hotGroups.size();
+  }
+
+  /**
+   * Sets what to call, once, for every group that becomes hot.
+   */
+  void setPromotionListener(Consumer<ImmutableSortedSet<String>> promotionListener) {
+    this.promotionListener = promotionListener;
+  }
+
+  /**
+   * Sets what to call, once, for every hot group that gives way to a more popular one.
+   */
+  void setDemotionListener(Consumer<ImmutableSortedSet<String>> demotionListener) {
+    this.demotionListener = demotionListener;
+  }
+
+  /**
+   * Returns whether {@code group} is hot right now.
+   */
+  boolean isHot(ImmutableSortedSet<String> group) {
+    return hotGroups.containsKey(group);
+  }
+
+  /**
+   * Returns whether the next lookup should be counted towards its group's popularity.
+   */
+  boolean shouldSample() {
+    return sampleEvery == 1 || ThreadLocalRandom.current().nextInt(sampleEvery) == 0;
+  }
+
+  /**
+   * Counts a lookup whose merged busy times were ready, without counting it towards its group.
+   */
+  void recordFastPath() {
+    fastPathLookups.increment();
+  }
+
+  /**
+   * Counts a lookup whose merged busy times were not ready, without counting it towards its group.
+   */
+  void recordSlowPath() {
+    slowPathLookups.increment();
+  }
+
+  /**
+   * Counts a sampled lookup of {@code group} whose merged busy times were ready.
+   */
+  void recordFastPath(ImmutableSortedSet<String> group) {
+    fastPathLookups.increment();
+    AtomicLong count = hotGroups.get(group);
+    if (count != null) {
+      count.incrementAndGet();
+    }
+    countLookup();
+  }
+
+  /**
+   * Counts a sampled lookup of {@code group} whose merged busy times were not ready, and makes the
+   * group hot if it has now been looked up often enough.
+   */
+  void recordSlowPath(ImmutableSortedSet<String> group) {
+    slowPathLookups.increment();
+    countLookup();
+    AtomicLong hotCount = hotGroups.get(group);
+    if (hotCount != null) {
+      // Already promoted; the index just hasn't caught up yet.
+      hotCount.incrementAndGet();
+      return;
+    }
+
+    long count = lookupCounts.computeIfAbsent(group, key -> new AtomicLong()).incrementAndGet();
+    if (lookupCounts.size() > maxTrackedGroups) {
+      decay(false);
+    }
+
+    if (count >= promotionThreshold) {
+      promote(group, count);
+    }
+  }
+
+  private void countLookup() {
+    if (lookupsSinceDecay.incrementAndGet() >= decayPeriod) {
+      decay(true);
+    }
+  }
+
+  /**
+   * Makes {@code group} hot, in place of the least popular hot group if there are already as many
+   * as allowed and that group has been looked up fewer than {@code count} times.
+   */
+  private void promote(ImmutableSortedSet<String> group, long count) {
+    ImmutableSortedSet<String> demoted = null;
+    synchronized (this) {
+      if (hotGroups.containsKey(group)) {
+        return;
+      }
+
+      if (hotGroups.size() >= maxHotGroups) {
+        Map.Entry<ImmutableSortedSet<String>, AtomicLong> coldest = null;
+        for (Map.Entry<ImmutableSortedSet<String>, AtomicLong> entry : hotGroups.entrySet()) {
+          if (coldest == null || entry.getValue().get() < coldest.getValue().get()) {
+            coldest = entry;
+          }
+        }
+        if (coldest.getValue().get() >= count) {
+          return;
+        }
+        demoted = coldest.getKey();
+        hotGroups.remove(demoted);
+      }
+
+      hotGroups.put(group, new AtomicLong(count));
+      lookupCounts.remove(group);
+    }
+
+    if (demoted != null) {
+      demotionListener.accept(demoted);
+    }
+    promotionListener.accept(group);
+  }
+
+  /**
+   * Halves every count, forgetting the groups that aren't hot and drop to zero. Unless
+   * {@code periodic}, only does so if too many groups are tracked.
+   */
+  private synchronized void decay(boolean periodic) {
+    // Another thread may have decayed the counts while this one waited.
+    if (periodic ? lookupsSinceDecay.get() < decayPeriod
+                 : lookupCounts.size() <= maxTrackedGroups) {
+      return;
+    }
+    lookupsSinceDecay.set(0);
+
+    for (AtomicLong count : hotGroups.values()) {
+      count.updateAndGet(value -> value / 2);
+    }
+
+    Iterator<Map.Entry<ImmutableSortedSet<String>, AtomicLong>> entries =
+        lookupCounts.entrySet().iterator();
+    while (entries.hasNext()) {
+      AtomicLong count = entries.next().getValue();
+      if (count.updateAndGet(value -> value / 2) == 0) {
+        entries.remove();
+      }
+    }
+  }
+}
@@ -0,0 +1,778 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads the events of an iCalendar (.ics) file, e.g. one exported from another calendar, one line
+ * at a time. Events are handed on in batches as they are read, so a file of any size can be
+ * imported without holding it in memory.
+ *
+ * <p>Every {@code VEVENT} becomes one {@link ImportedEvent} per day it touches, since an
+ * {@link Event} takes place within a single day. Events spanning more than
+ * {@link #MAX_EVENT_DAYS} days are skipped as malformed. Times are converted to wall-clock times in
+ * {@code calendarZone}, as {@link EpochRange} expects, not to UTC; times without a zone are taken
+ * to be in it already. Attendees are named by their {@code CN}
+ * parameter, or by their address if they have none. The organizer counts as an attendee, and
+ * attendees who declined do not.
+ *
+ * <p>Daily and weekly {@code RRULE}s, with {@code INTERVAL}, {@code UNTIL}, {@code COUNT} and, for
+ * weekly rules, {@code BYDAY}, become {@link Recurrence}s. Events with any other rule are skipped,
+ * as are cancelled events and events marked {@code TRANSP:TRANSPARENT}, which don't make anyone
+ * busy. {@code EXDATE} and {@code RDATE} are ignored, so an imported series may be busier than the
+ * original but never less busy.
+ */
+public final class IcsImporter {
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  // Longest event imported, so that one far-off DTEND or huge DURATION can't turn into millions of
+  // days.
+  public static final int MAX_EVENT_DAYS = 366;
+
+  private static final int MINUTES_PER_DAY = EpochRange.MINUTES_PER_DAY;
+  private static final long DAYS_PER_WEEK = 7;
+
+  // Larger numbers in a DURATION could overflow once converted to minutes.
+  private static final long MAX_DURATION_NUMBER = Integer.MAX_VALUE;
+
+  // Last day of a series with neither UNTIL nor COUNT.
+  private static final long OPEN_ENDED_LAST_DAY = LocalDate.of(9999, 12, 31).toEpochDay();
+
+  private final ZoneId calendarZone;
+  private final int batchSize;
+
+  // Zones named by TZID parameters. Names Java doesn't know map to the calendar zone.
+  private final Map<String, ZoneId> zonesById = new HashMap<>();
+
+  /**
+   * Creates an importer that converts times to {@code calendarZone} and hands on {@code batchSize}
+   * events at a time.
+   */
+  public IcsImporter(ZoneId calendarZone, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batch size must be positive");
+    }
+
+    this.calendarZone = calendarZone;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Reads every event in {@code in}, which must be UTF-8, and adds it to {@code query}.
+   */
+  public Result importInto(InputStream in, MultiDayMeetingQuery query) throws IOException {
+    return importEvents(in, batch -> {
+      for (ImportedEvent event : batch) {
+        event.addTo(query);
+      }
+    });
+  }
+
+  /**
+   * Reads every event in {@code in}, which must be UTF-8, and passes them to {@code batchConsumer}
+   * in the order they appear, at most the batch size at a time. Each batch is a new list the
+   * consumer may keep.
+   */
+  public Result importEvents(InputStream in, Consumer<? super List<ImportedEvent>> batchConsumer)
+      throws IOException {
+    Parser parser = new Parser(batchConsumer);
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+    // Long lines are folded onto lines starting with a space or tab, so a line is only complete
+    // once the next one starts with something else.
+    String pending = null;
+    StringBuilder unfolded = new StringBuilder();
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      if (!line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+        if (pending != null) {
+          if (unfolded.length() == 0) {
+            unfolded.append(pending);
+          }
+          unfolded.append(line, 1, line.length());
+        }
+        continue;
+      }
+
+      if (pending != null) {
+        parser.contentLine(unfolded.length() == 0 ? pending : unfolded.toString());
+        unfolded.setLength(0);
+      }
+      pending = line;
+    }
+    if (pending != null) {
+      parser.contentLine(unfolded.length() == 0 ? pending : unfolded.toString());
+    }
+
+    return parser.finish();
+  }
+
+  /**
+   * How many events an import read.
+   */
+  public static final class Result {
+    private final long importedCount;
+    private final long skippedCount;
+
+    private Result(long importedCount, long skippedCount) {
+      this.importedCount = importedCount;
+      this.skippedCount = skippedCount;
+    }
+
+    /**
+     * Returns the number of {@code VEVENT}s imported. One that spans several days counts once.
+     */
+    public long getImportedCount() {
+      return importedCount;
+    }
+
+    /**
+     * Returns the number of {@code VEVENT}s left out because they were cancelled, transparent,
+     * malformed or recurred in an unsupported way.
+     */
+    public long getSkippedCount() {
+      return skippedCount;
+    }
+  }
+
+  /**
+   * An imported event that takes place either on one day or on every day of a recurrence.
+   */
+  public static final class ImportedEvent {
+    private final long epochDay;
+    private final Recurrence recurrence;
+    private final Event event;
+
+    private ImportedEvent(long epochDay, Recurrence recurrence, Event event) {
+      this.epochDay = epochDay;
+      this.recurrence = recurrence;
+      this.event = event;
+    }
+
+    /**
+     * Returns the day the event takes place on, in days since the epoch. For a recurring event,
+     * this is the day the series was written to start on; the recurrence says which days it
+     * actually takes place on.
+     */
+    public long getEpochDay() {
+      return epochDay;
+    }
+
+    /**
+     * Returns the days the event repeats on, or null if it takes place once.
+     */
+    public Recurrence getRecurrence() {
+      return recurrence;
+    }
+
+    public Event getEvent() {
+      return event;
+    }
+
+    /**
+     * Adds the event to {@code query}.
+     */
+    public void addTo(MultiDayMeetingQuery query) {
+      if (recurrence == null) {
+        query.addEvent(epochDay, event);
+      } else {
+        query.addRecurringEvent(recurrence, event);
+      }
+    }
+  }
+
+  /**
+   * State of one import: the event being read and the batch being filled.
+   */
+  private final class Parser {
+    private final Consumer<? super List<ImportedEvent>> batchConsumer;
+    private List<ImportedEvent> batch = new ArrayList<>(batchSize);
+    private long importedCount = 0;
+    private long skippedCount = 0;
+
+    // Null outside of a VEVENT.
+    private EventProperties event = null;
+
+    // Depth of components nested inside the VEVENT, such as VALARMs, whose properties are ignored.
+    private int nestedDepth = 0;
+
+    private Parser(Consumer<? super List<ImportedEvent>> batchConsumer) {
+      this.batchConsumer = batchConsumer;
+    }
+
+    private void contentLine(String line) {
+      ContentLine content = ContentLine.parse(line);
+      if (content == null) {
+        return;
+      }
+
+      if (content.is("BEGIN")) {
+        if (event != null) {
+          nestedDepth++;
+        } else if (content.value.equalsIgnoreCase("VEVENT")) {
+          event = new EventProperties();
+        }
+        return;
+      }
+
+      if (content.is("END") && event != null) {
+        if (nestedDepth > 0) {
+          nestedDepth--;
+        } else {
+          endEvent();
+        }
+        return;
+      }
+
+      if (event != null && nestedDepth == 0) {
+        event.set(content);
+      }
+    }
+
+    private void endEvent() {
+      EventProperties properties = event;
+      event = null;
+
+      List<ImportedEvent> imported;
+      try {
+        imported = properties.skip ? null : convert(properties);
+      } catch (DateTimeException | IllegalArgumentException e) {
+        // A malformed date, time or rule.
+        imported = null;
+      }
+      if (imported == null) {
+        skippedCount++;
+        return;
+      }
+
+      importedCount++;
+      for (ImportedEvent importedEvent : imported) {
+        batch.add(importedEvent);
+        if (batch.size() == batchSize) {
+          flush();
+        }
+      }
+    }
+
+    private void flush() {
+      if (!batch.isEmpty()) {
+        batchConsumer.accept(batch);
+        batch = new ArrayList<>(batchSize);
+      }
+    }
+
+    private Result finish() {
+      flush();
+      return new Result(importedCount, skippedCount);
+    }
+  }
+
+  /**
+   * Returns the events {@code properties} describes, or null if it should be skipped.
+   */
+  private List<ImportedEvent> convert(EventProperties properties) {
+    if (properties.start == null) {
+      return null;
+    }
+
+    boolean allDay = isDate(properties.start);
+    long start = toEpochMinute(properties.start);
+    long end;
+    if (properties.end != null) {
+      end = toEpochMinute(properties.end);
+    } else if (properties.duration != null) {
+      end = start + parseDurationMinutes(properties.duration.value);
+    } else {
+      // An all-day event without an end lasts the day; any other is over as soon as it starts.
+      end = allDay ? start + MINUTES_PER_DAY : start;
+    }
+    if (end <= start) {
+      return null;
+    }
+
+    // An Event takes place within one day, so split the event at every midnight.
+    long firstDay = Math.floorDiv(start, MINUTES_PER_DAY);
+    long lastDay = Math.floorDiv(end - 1, MINUTES_PER_DAY);
+    if (lastDay - firstDay >= MAX_EVENT_DAYS) {
+      throw new IllegalArgumentException("event spans more than " + MAX_EVENT_DAYS + " days");
+    }
+    int[] attendeeIds = AttendeeRegistry.getInstance().internAll(properties.attendees);
+    List<ImportedEvent> imported = new ArrayList<>();
+    for (long day = firstDay; day <= lastDay; day++) {
+      long dayStart = day * MINUTES_PER_DAY;
+      TimeRange when = TimeRange.fromStartEnd((int) (Math.max(start, dayStart) - dayStart),
+          (int) (Math.min(end, dayStart + MINUTES_PER_DAY) - dayStart), false);
+      Event event = new Event(properties.title, when, attendeeIds);
+
+      if (properties.rule == null) {
+        imported.add(new ImportedEvent(day, null, event));
+      } else {
+        List<Recurrence> recurrences = toRecurrences(properties.rule, start, day - firstDay);
+        if (recurrences == null) {
+          return null;
+        }
+        for (Recurrence recurrence : recurrences) {
+          imported.add(new ImportedEvent(day, recurrence, event));
+        }
+      }
+    }
+    return imported;
+  }
+
+  /**
+   * Returns the recurrences of the part of an event {@code dayOffset} days after the day it starts,
+   * for an event starting at {@code start} that repeats by {@code rule}, or null if the rule is not
+   * supported.
+   */
+  private List<Recurrence> toRecurrences(ContentLine rule, long start, long dayOffset) {
+    String frequency = null;
+    int interval = 1;
+    String until = null;
+    long count = -1;
+    List<DayOfWeek> byDay = new ArrayList<>();
+
+    for (String part : rule.value.split(";")) {
+      int equals = part.indexOf('=');
+      if (equals < 0) {
+        return null;
+      }
+      String name = part.substring(0, equals).toUpperCase(Locale.ROOT);
+      String value = part.substring(equals + 1);
+      switch (name) {
+        case "FREQ":
+          frequency = value.toUpperCase(Locale.ROOT);
+          break;
+        case "INTERVAL":
+          interval = Integer.parseInt(value);
+          if (interval <= 0) {
+            throw new IllegalArgumentException("INTERVAL must be positive: " + value);
+          }
+          break;
+        case "UNTIL":
+          until = value;
+          break;
+        case "COUNT":
+          count = Long.parseLong(value);
+          if (count <= 0) {
+            throw new IllegalArgumentException("COUNT must be positive: " + value);
+          }
+          break;
+        case "BYDAY":
+          for (String day : value.split(",")) {
+            DayOfWeek dayOfWeek = parseDayOfWeek(day);
+            if (dayOfWeek == null) {
+              return null;
+            }
+            byDay.add(dayOfWeek);
+          }
+          break;
+        case "WKST":
+          // Weeks always start on Monday here, which is the default.
+          break;
+        default:
+          return null;
+      }
+    }
+
+    long startDay = Math.floorDiv(start, MINUTES_PER_DAY);
+    long lastDay = OPEN_ENDED_LAST_DAY;
+    if (until != null) {
+      // The last occurrence starts at or before UNTIL, which is a date or, usually, a UTC time.
+      ContentLine untilTime = new ContentLine("UNTIL", null, until);
+      long untilMinute = toEpochMinute(untilTime);
+      lastDay = isDate(untilTime)
+          ? Math.floorDiv(untilMinute, MINUTES_PER_DAY)
+          : Math.floorDiv(untilMinute - (start - startDay * MINUTES_PER_DAY), MINUTES_PER_DAY);
+    }
+
+    List<Recurrence> recurrences = new ArrayList<>();
+    if ("DAILY".equals(frequency) && byDay.isEmpty()) {
+      if (count >= 0) {
+        lastDay = Math.min(lastDay, startDay + (count - 1) * interval);
+      }
+      if (startDay <= lastDay) {
+        recurrences.add(Recurrence.daily(startDay + dayOffset, lastDay + dayOffset, interval));
+      }
+    } else if ("WEEKLY".equals(frequency)) {
+      if (byDay.isEmpty()) {
+        byDay.add(LocalDate.ofEpochDay(startDay).getDayOfWeek());
+      }
+
+      // Each weekday is its own series, starting on its first day on or after the event's start.
+      long weekStart = startDay - LocalDate.ofEpochDay(startDay).getDayOfWeek().ordinal();
+      List<Long> firstDays = new ArrayList<>();
+      for (DayOfWeek dayOfWeek : byDay) {
+        long firstDay = weekStart + dayOfWeek.ordinal();
+        firstDays.add(firstDay < startDay ? firstDay + interval * DAYS_PER_WEEK : firstDay);
+      }
+      if (count >= 0) {
+        lastDay = Math.min(lastDay, lastDayOfWeeklyCount(firstDays, interval, count));
+      }
+
+      for (long firstDay : firstDays) {
+        if (firstDay <= lastDay) {
+          recurrences.add(Recurrence.weekly(firstDay + dayOffset, lastDay + dayOffset, interval));
+        }
+      }
+    } else {
+      return null;
+    }
+    return recurrences;
+  }
+
+  /**
+   * Returns the day of occurrence number {@code count} of a weekly series that starts on each of
+   * {@code firstDays} and repeats every {@code interval} weeks.
+   */
+  private static long lastDayOfWeeklyCount(List<Long> firstDays, int interval, long count) {
+    int perRound = firstDays.size();
+    if (count <= 0) {
+      return Long.MIN_VALUE;
+    }
+
+    // Rounds of one occurrence on each day, then the days of the last, partial round in order.
+    long fullRounds = (count - 1) / perRound;
+    int remaining = (int) ((count - 1) % perRound);
+    List<Long> sortedDays = new ArrayList<>(firstDays);
+    sortedDays.sort(null);
+    return sortedDays.get(remaining) + fullRounds * interval * DAYS_PER_WEEK;
+  }
+
+  private static DayOfWeek parseDayOfWeek(String day) {
+    switch (day.toUpperCase(Locale.ROOT)) {
+      case "MO":
+        return DayOfWeek.MONDAY;
+      case "TU":
+        return DayOfWeek.TUESDAY;
+      case "WE":
+        return DayOfWeek.WEDNESDAY;
+      case "TH":
+        return DayOfWeek.THURSDAY;
+      case "FR":
+        return DayOfWeek.FRIDAY;
+      case "SA":
+        return DayOfWeek.SATURDAY;
+      case "SU":
+        return DayOfWeek.SUNDAY;
+      default:
+        // Includes days like "1MO", which only make sense for monthly and yearly rules.
+        return null;
+    }
+  }
+
+  private static boolean isDate(ContentLine line) {
+    return line.value.length() == 8 || "DATE".equalsIgnoreCase(line.param("VALUE"));
+  }
+
+  /**
+   * Returns the wall-clock minutes since the epoch, in the calendar zone, of a {@code DATE} or
+   * {@code DATE-TIME} value such as {@code 20200601} or {@code 20200601T090000Z}. Seconds are
+   * dropped.
+   */
+  private long toEpochMinute(ContentLine line) {
+    String value = line.value;
+    LocalDate date = LocalDate.of(parseDigits(value, 0, 4), parseDigits(value, 4, 6),
+        parseDigits(value, 6, 8));
+    if (isDate(line)) {
+      // All-day events are on the same days wherever they are seen from.
+      return date.toEpochDay() * MINUTES_PER_DAY;
+    }
+
+    if (value.length() < 13 || value.charAt(8) != 'T') {
+      throw new DateTimeException("not a date-time: " + value);
+    }
+    int hour = parseDigits(value, 9, 11);
+    int minute = parseDigits(value, 11, 13);
+
+    ZoneId zone;
+    if (value.endsWith("Z")) {
+      zone = ZoneOffset.UTC;
+    } else {
+      String zoneId = line.param("TZID");
+      zone = zoneId == null ? calendarZone : zone(zoneId);
+    }
+
+    if (zone.equals(calendarZone)) {
+      return date.toEpochDay() * MINUTES_PER_DAY + hour * 60 + minute;
+    }
+    LocalDateTime local = LocalDateTime.of(date, LocalTime.of(hour, minute))
+        .atZone(zone).withZoneSameInstant(calendarZone).toLocalDateTime();
+    return local.toLocalDate().toEpochDay() * MINUTES_PER_DAY + local.getHour() * 60
+        + local.getMinute();
+  }
+
+  private ZoneId zone(String zoneId) {
+    return zonesById.computeIfAbsent(zoneId, id -> {
+      try {
+        return ZoneId.of(id);
+      } catch (DateTimeException e) {
+        return calendarZone;
+      }
+    });
+  }
+
+  /**
+   * Returns the number of minutes in a {@code DURATION} value such as {@code PT1H30M} or
+   * {@code P1D}. Seconds are dropped.
+   */
+  private static long parseDurationMinutes(String value) {
+    boolean negative = value.startsWith("-");
+    int position = value.startsWith("+") || negative ? 1 : 0;
+    if (position >= value.length() || value.charAt(position) != 'P') {
+      throw new IllegalArgumentException("not a duration: " + value);
+    }
+    position++;
+
+    long minutes = 0;
+    long number = 0;
+    boolean inTime = false;
+    for (; position < value.length(); position++) {
+      char c = value.charAt(position);
+      if (c >= '0' && c <= '9') {
+        number = number * 10 + (c - '0');
+        if (number > MAX_DURATION_NUMBER) {
+          throw new IllegalArgumentException("duration too long: " + value);
+        }
+        continue;
+      }
+      switch (c) {
+        case 'T':
+          inTime = true;
+          break;
+        case 'W':
+          minutes += number * DAYS_PER_WEEK * MINUTES_PER_DAY;
+          break;
+        case 'D':
+          minutes += number * MINUTES_PER_DAY;
+          break;
+        case 'H':
+          minutes += number * 60;
+          break;
+        case 'M':
+          if (!inTime) {
+            throw new IllegalArgumentException("months are not a duration: " + value);
+          }
+          minutes += number;
+          break;
+        case 'S':
+          break;
+        default:
+          throw new IllegalArgumentException("not a duration: " + value);
+      }
+      number = 0;
+    }
+    return negative ? -minutes : minutes;
+  }
+
+  private static int parseDigits(String value, int from, int to) {
+    if (value.length() < to) {
+      throw new DateTimeException("not a date: " + value);
+    }
+
+    int number = 0;
+    for (int i = from; i < to; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        throw new DateTimeException("not a date: " + value);
+      }
+      number = number * 10 + (c - '0');
+    }
+    return number;
+  }
+
+  /**
+   * The properties of a {@code VEVENT} that matter for when people are busy.
+   */
+  private static final class EventProperties {
+    private String title = "";
+    private ContentLine start = null;
+    private ContentLine end = null;
+    private ContentLine duration = null;
+    private ContentLine rule = null;
+    private final List<String> attendees = new ArrayList<>();
+    private boolean skip = false;
+
+    private void set(ContentLine line) {
+      switch (line.name.toUpperCase(Locale.ROOT)) {
+        case "SUMMARY":
+          title = unescape(line.value);
+          break;
+        case "DTSTART":
+          start = line;
+          break;
+        case "DTEND":
+          end = line;
+          break;
+        case "DURATION":
+          duration = line;
+          break;
+        case "RRULE":
+          // More than one rule is allowed but rare, and can't be a single Recurrence.
+          skip |= rule != null;
+          rule = line;
+          break;
+        case "STATUS":
+          skip |= line.value.equalsIgnoreCase("CANCELLED");
+          break;
+        case "TRANSP":
+          skip |= line.value.equalsIgnoreCase("TRANSPARENT");
+          break;
+        case "ATTENDEE":
+          if (!"DECLINED".equalsIgnoreCase(line.param("PARTSTAT"))) {
+            attendees.add(attendeeName(line));
+          }
+          break;
+        case "ORGANIZER":
+          attendees.add(attendeeName(line));
+          break;
+        default:
+          break;
+      }
+    }
+
+    private static String attendeeName(ContentLine line) {
+      String commonName = line.param("CN");
+      if (commonName != null && !commonName.isEmpty()) {
+        return commonName;
+      }
+      return line.value.regionMatches(true, 0, "mailto:", 0, 7)
+          ? line.value.substring(7)
+          : line.value;
+    }
+
+    private static String unescape(String text) {
+      if (text.indexOf('\\') < 0) {
+        return text;
+      }
+
+      StringBuilder unescaped = new StringBuilder(text.length());
+      for (int i = 0; i < text.length(); i++) {
+        char c = text.charAt(i);
+        if (c == '\\' && i + 1 < text.length()) {
+          char next = text.charAt(++i);
+          unescaped.append(next == 'n' || next == 'N' ? '\n' : next);
+        } else {
+          unescaped.append(c);
+        }
+      }
+      return unescaped.toString();
+    }
+  }
+
+  /**
+   * One unfolded line: {@code NAME;PARAM=value;...:VALUE}.
+   */
+  private static final class ContentLine {
+    private final String name;
+    // Everything between the name and the value, starting with ';', or null if there is nothing.
+    private final String params;
+    private final String value;
+
+    private ContentLine(String name, String params, String value) {
+      this.name = name;
+      this.params = params;
+      this.value = value;
+    }
+
+    /**
+     * Returns the parsed {@code line}, or null if it is not a content line.
+     */
+    private static ContentLine parse(String line) {
+      int nameEnd = 0;
+      while (nameEnd < line.length() && line.charAt(nameEnd) != ';' && line.charAt(nameEnd) != ':') {
+        nameEnd++;
+      }
+      if (nameEnd == 0 || nameEnd == line.length()) {
+        return null;
+      }
+
+      // Parameter values may be quoted and contain ':'.
+      int colon = nameEnd;
+      boolean quoted = false;
+      while (colon < line.length() && (quoted || line.charAt(colon) != ':')) {
+        if (line.charAt(colon) == '"') {
+          quoted = !quoted;
+        }
+        colon++;
+      }
+      if (colon == line.length()) {
+        return null;
+      }
+
+      return new ContentLine(line.substring(0, nameEnd),
+          colon == nameEnd ? null : line.substring(nameEnd, colon), line.substring(colon + 1));
+    }
+
+    private boolean is(String propertyName) {
+      return name.equalsIgnoreCase(propertyName);
+    }
+
+    /**
+     * Returns the value of the parameter {@code paramName} without quotes, or null if there is
+     * none.
+     */
+    private String param(String paramName) {
+      if (params == null) {
+        return null;
+      }
+
+      int position = 0;
+      while (position < params.length()) {
+        // Each parameter starts with ';'.
+        int nameStart = position + 1;
+        int equals = params.indexOf('=', nameStart);
+        if (equals < 0) {
+          return null;
+        }
+
+        int valueEnd = equals + 1;
+        boolean quoted = false;
+        while (valueEnd < params.length() && (quoted || params.charAt(valueEnd) != ';')) {
+          if (params.charAt(valueEnd) == '"') {
+            quoted = !quoted;
+          }
+          valueEnd++;
+        }
+
+        if (params.regionMatches(true, nameStart, paramName, 0, paramName.length())
+            && equals - nameStart == paramName.length()) {
+          String paramValue = params.substring(equals + 1, valueEnd);
+          return paramValue.length() >= 2 && paramValue.startsWith("\"") && paramValue.endsWith("\"")
+              ? paramValue.substring(1, paramValue.length() - 1)
+              : paramValue;
+        }
+        position = valueEnd;
+      }
+      return null;
+    }
+  }
+}
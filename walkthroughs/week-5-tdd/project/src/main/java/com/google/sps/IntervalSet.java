@@ -0,0 +1,330 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of minutes in a day, stored as sorted intervals in two parallel {@code int} arrays.
+ * Intervals never overlap or touch, so every set has exactly one representation. Union,
+ * intersection and complement are single linear passes over the arrays and never create
+ * {@link TimeRange} objects; use {@link #toTimeRanges} once the result is final.
+ */
+public final class IntervalSet {
+  private static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  private static final IntervalSet EMPTY = new IntervalSet(new int[0], new int[0], 0);
+
+  private final int[] starts;
+  private final int[] ends;
+  private final int size;
+
+  private IntervalSet(int[] starts, int[] ends, int size) {
+    this.starts = starts;
+    this.ends = ends;
+    this.size = size;
+  }
+
+  /**
+   * Returns the set with no minutes in it.
+   */
+  public static IntervalSet empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns the set of minutes from {@code start} (inclusive) to {@code end} (exclusive).
+   */
+  public static IntervalSet of(int start, int end) {
+    return start < end ? new IntervalSet(new int[] {start}, new int[] {end}, 1) : EMPTY;
+  }
+
+  /**
+   * Returns the number of intervals in the set.
+   */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the start of the {@code index}th interval.
+   */
+  public int start(int index) {
+    return starts[index];
+  }
+
+  /**
+   * Returns the exclusive end of the {@code index}th interval.
+   */
+  public int end(int index) {
+    return ends[index];
+  }
+
+  /**
+   * Returns the minutes that are in this set, {@code other}, or both.
+   */
+  public IntervalSet union(IntervalSet other) {
+    if (other.isEmpty()) {
+      return this;
+    }
+    if (isEmpty()) {
+      return other;
+    }
+
+    Builder union = new Builder(size + other.size);
+    int i = 0;
+    int j = 0;
+    // Take whichever interval starts first; the builder joins it to the previous one if they meet.
+    while (i < size || j < other.size) {
+      if (j == other.size || (i < size && starts[i] <= other.starts[j])) {
+        union.add(starts[i], ends[i]);
+        i++;
+      } else {
+        union.add(other.starts[j], other.ends[j]);
+        j++;
+      }
+    }
+    return union.build();
+  }
+
+  /**
+   * Returns the union of all of {@code sets}. Sets are combined in pairs, so the total cost is
+   * O(n log k) for {@code n} intervals spread over {@code k} sets.
+   */
+  public static IntervalSet unionAll(List<IntervalSet> sets) {
+    if (sets.isEmpty()) {
+      return EMPTY;
+    }
+
+    IntervalSet[] round = sets.toArray(new IntervalSet[0]);
+    int remaining = round.length;
+    while (remaining > 1) {
+      int merged = 0;
+      for (int i = 0; i < remaining; i += 2) {
+        round[merged++] = i + 1 < remaining ? round[i].union(round[i + 1]) : round[i];
+      }
+      remaining = merged;
+    }
+    return round[0];
+  }
+
+  /**
+   * Returns the minutes that are in both this set and {@code other}.
+   */
+  public IntervalSet intersect(IntervalSet other) {
+    Builder intersection = new Builder(size + other.size);
+    int i = 0;
+    int j = 0;
+    while (i < size && j < other.size) {
+      int start = Math.max(starts[i], other.starts[j]);
+      int end = Math.min(ends[i], other.ends[j]);
+      if (start < end) {
+        intersection.add(start, end);
+      }
+
+      // Whichever interval ends first can't overlap anything else in the other set.
+      if (ends[i] < other.ends[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return intersection.build();
+  }
+
+  /**
+   * Returns the minutes of the day, from {@link TimeRange#START_OF_DAY} to the end of
+   * {@link TimeRange#WHOLE_DAY}, that are not in this set.
+   */
+  public IntervalSet complementWithinDay() {
+    Builder complement = new Builder(size + 1);
+    int previousEnd = TimeRange.START_OF_DAY;
+    for (int i = 0; i < size && previousEnd < MINUTES_PER_DAY; i++) {
+      complement.add(previousEnd, Math.min(starts[i], MINUTES_PER_DAY));
+      previousEnd = Math.max(previousEnd, ends[i]);
+    }
+    complement.add(previousEnd, MINUTES_PER_DAY);
+    return complement.build();
+  }
+
+  /**
+   * Returns the intervals that are at least {@code minLength} minutes long.
+   */
+  public IntervalSet filterMinLength(long minLength) {
+    Builder filtered = new Builder(size);
+    for (int i = 0; i < size; i++) {
+      if (ends[i] - starts[i] >= minLength) {
+        filtered.add(starts[i], ends[i]);
+      }
+    }
+    return filtered.size == size ? this : filtered.build();
+  }
+
+  /**
+   * Returns one {@link TimeRange} per interval, sorted by start time.
+   */
+  public ImmutableList<TimeRange> toTimeRanges() {
+    ImmutableList.Builder<TimeRange> ranges = ImmutableList.builder();
+    for (int i = 0; i < size; i++) {
+      ranges.add(TimeRange.fromStartEnd(starts[i], ends[i], false));
+    }
+    return ranges.build();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof IntervalSet)) {
+      return false;
+    }
+
+    IntervalSet that = (IntervalSet) other;
+    if (size != that.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (starts[i] != that.starts[i] || ends[i] != that.ends[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = size;
+    for (int i = 0; i < size; i++) {
+      hash = 31 * hash + starts[i];
+      hash = 31 * hash + ends[i];
+    }
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder string = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      string.append(i == 0 ? "" : ", ").append('[').append(starts[i]).append(", ")
+          .append(ends[i]).append(')');
+    }
+    return string.append('}').toString();
+  }
+
+  /**
+   * Collects intervals in any order, possibly overlapping, and builds the set they cover.
+   */
+  public static final class Builder {
+    private int[] starts;
+    private int[] ends;
+    private int size = 0;
+
+    // Whether every interval so far was appended in order and merged with its neighbours.
+    private boolean normalized = true;
+
+    public Builder() {
+      this(8);
+    }
+
+    public Builder(int expectedSize) {
+      this.starts = new int[Math.max(expectedSize, 1)];
+      this.ends = new int[Math.max(expectedSize, 1)];
+    }
+
+    /**
+     * Adds the minutes from {@code start} (inclusive) to {@code end} (exclusive). Empty intervals
+     * are ignored.
+     */
+    public Builder add(int start, int end) {
+      if (start >= end) {
+        return this;
+      }
+
+      if (normalized && (size == 0 || start > ends[size - 1])) {
+        append(start, end);
+      } else if (normalized && start >= starts[size - 1]) {
+        ends[size - 1] = Math.max(ends[size - 1], end);
+      } else {
+        normalized = false;
+        append(start, end);
+      }
+      return this;
+    }
+
+    /**
+     * Adds every minute of {@code range}.
+     */
+    public Builder add(TimeRange range) {
+      return add(range.start(), range.end());
+    }
+
+    /**
+     * Returns the set covered by every interval added so far. The builder is empty again afterwards.
+     */
+    public IntervalSet build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+      if (!normalized) {
+        sortAndMerge();
+      }
+
+      // Hand the arrays over to the set instead of copying them.
+      IntervalSet set = new IntervalSet(starts, ends, size);
+      starts = new int[1];
+      ends = new int[1];
+      size = 0;
+      return set;
+    }
+
+    private void append(int start, int end) {
+      if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+        ends = Arrays.copyOf(ends, size * 2);
+      }
+      starts[size] = start;
+      ends[size] = end;
+      size++;
+    }
+
+    private void sortAndMerge() {
+      // Sort the intervals by start by packing each one into a single long.
+      long[] packed = new long[size];
+      for (int i = 0; i < size; i++) {
+        packed[i] = ((long) starts[i] << 32) | (ends[i] & 0xFFFFFFFFL);
+      }
+      Arrays.sort(packed);
+
+      int merged = 0;
+      for (long interval : packed) {
+        int start = (int) (interval >> 32);
+        int end = (int) interval;
+        if (merged > 0 && start <= ends[merged - 1]) {
+          ends[merged - 1] = Math.max(ends[merged - 1], end);
+        } else {
+          starts[merged] = start;
+          ends[merged] = end;
+          merged++;
+        }
+      }
+      size = merged;
+      normalized = true;
+    }
+  }
+}
@@ -0,0 +1,312 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable interval tree mapping {@link EpochRange}s to values. It is a balanced (AVL) search tree
+ * ordered by range start, where every node also remembers the latest end in its subtree so whole
+ * subtrees can be skipped during a search. Finding the {@code k} entries that overlap a window takes
+ * O(log n + k) when the ranges don't nest much, but O(min(n, k log n)) at worst: a subtree whose
+ * latest end reaches the window can still be searched down to a leaf for one match.
+ *
+ * <p>Adding or removing an entry returns a new tree and leaves this one untouched. Only the nodes on
+ * the path to the change are copied, so old and new trees share almost all of their nodes and any
+ * tree can be read from many threads at once.
+ */
+public final class IntervalTree<V> {
+  private static final IntervalTree<Object> EMPTY = new IntervalTree<>(null);
+
+  private final Node<V> root;
+
+  private IntervalTree(Node<V> root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns a tree with no entries.
+   */
+  @SuppressWarnings("unchecked")
+  public static <V> IntervalTree<V> empty() {
+    return (IntervalTree<V>) EMPTY;
+  }
+
+  /**
+   * Returns a tree mapping the range {@code rangeOf} gives for each of {@code values} to that value.
+   * The tree is built in one pass over the sorted entries, which is much cheaper than adding them
+   * one at a time.
+   */
+  public static <V> IntervalTree<V> copyOf(
+      Collection<? extends V> values, Function<? super V, EpochRange> rangeOf) {
+    List<Entry<V>> entries = new ArrayList<>(values.size());
+    for (V value : values) {
+      entries.add(new Entry<>(rangeOf.apply(value), value));
+    }
+    entries.sort((a, b) -> compare(a.range, b.range));
+    return new IntervalTree<>(build(entries, 0, entries.size()));
+  }
+
+  /**
+   * Returns the number of entries in the tree.
+   */
+  public int size() {
+    return size(root);
+  }
+
+  /**
+   * Returns whether the tree has no entries.
+   */
+  public boolean isEmpty() {
+    return root == null;
+  }
+
+  /**
+   * Returns a tree with every entry of this tree plus {@code range} mapped to {@code value}. The
+   * same range may be added more than once.
+   */
+  public IntervalTree<V> with(EpochRange range, V value) {
+    return new IntervalTree<>(insert(root, range, value));
+  }
+
+  /**
+   * Returns a tree without one entry mapping {@code range} to a value equal to {@code value}, or
+   * this tree if there is no such entry.
+   */
+  public IntervalTree<V> without(EpochRange range, V value) {
+    Node<V> newRoot = remove(root, range, value);
+    return newRoot == root ? this : new IntervalTree<>(newRoot);
+  }
+
+  /**
+   * Returns every entry whose range shares at least one minute with {@code window}, sorted by the
+   * start of the range. A window with no duration finds the entries that contain its start, like
+   * {@link EpochRange#overlaps}. Entries with no duration are never found.
+   */
+  public ImmutableList<Entry<V>> findOverlapping(EpochRange window) {
+    ImmutableList.Builder<Entry<V>> overlapping = ImmutableList.builder();
+    collectOverlapping(root, window, overlapping);
+    return overlapping.build();
+  }
+
+  /**
+   * Returns every entry in the tree, sorted by the start of the range.
+   */
+  public ImmutableList<Entry<V>> entries() {
+    ImmutableList.Builder<Entry<V>> entries = ImmutableList.builder();
+    collectAll(root, entries);
+    return entries.build();
+  }
+
+  /**
+   * One range and the value it maps to.
+   */
+  public static final class Entry<V> {
+    private final EpochRange range;
+    private final V value;
+
+    private Entry(EpochRange range, V value) {
+      this.range = range;
+      this.value = value;
+    }
+
+    public EpochRange range() {
+      return range;
+    }
+
+    public V value() {
+      return value;
+    }
+  }
+
+  private static final class Node<V> {
+    private final Entry<V> entry;
+    private final Node<V> left;
+    private final Node<V> right;
+    private final int height;
+    private final int size;
+
+    // The latest end of any range in this subtree.
+    private final long maxEnd;
+
+    private Node(Entry<V> entry, Node<V> left, Node<V> right) {
+      this.entry = entry;
+      this.left = left;
+      this.right = right;
+      this.height = Math.max(height(left), height(right)) + 1;
+      this.size = size(left) + size(right) + 1;
+      this.maxEnd = Math.max(entry.range.end(), Math.max(maxEnd(left), maxEnd(right)));
+    }
+  }
+
+  private static <V> void collectOverlapping(
+      Node<V> node, EpochRange window, ImmutableList.Builder<Entry<V>> overlapping) {
+    // Nothing in this subtree ends after the window starts.
+    if (node == null || node.maxEnd <= window.start()) {
+      return;
+    }
+
+    collectOverlapping(node.left, window, overlapping);
+
+    // Everything from here on starts at or after this node, so stop once we pass the window. An
+    // empty window still takes entries starting right at it.
+    EpochRange range = node.entry.range;
+    if (range.start() >= Math.max(window.end(), window.start() + 1)) {
+      return;
+    }
+
+    if (window.start() < range.end()) {
+      overlapping.add(node.entry);
+    }
+    collectOverlapping(node.right, window, overlapping);
+  }
+
+  private static <V> void collectAll(Node<V> node, ImmutableList.Builder<Entry<V>> entries) {
+    if (node == null) {
+      return;
+    }
+
+    collectAll(node.left, entries);
+    entries.add(node.entry);
+    collectAll(node.right, entries);
+  }
+
+  /**
+   * Builds a perfectly balanced subtree of the sorted {@code entries[from, to)}.
+   */
+  private static <V> Node<V> build(List<Entry<V>> entries, int from, int to) {
+    if (from == to) {
+      return null;
+    }
+
+    int middle = (from + to) >>> 1;
+    return new Node<>(
+        entries.get(middle), build(entries, from, middle), build(entries, middle + 1, to));
+  }
+
+  private static <V> Node<V> insert(Node<V> node, EpochRange range, V value) {
+    if (node == null) {
+      return new Node<>(new Entry<>(range, value), null, null);
+    }
+
+    if (compare(range, node.entry.range) < 0) {
+      return balance(node.entry, insert(node.left, range, value), node.right);
+    }
+    return balance(node.entry, node.left, insert(node.right, range, value));
+  }
+
+  /**
+   * Returns {@code node} itself if nothing was removed, so callers can tell whether anything
+   * changed.
+   */
+  private static <V> Node<V> remove(Node<V> node, EpochRange range, V value) {
+    if (node == null) {
+      return null;
+    }
+
+    int comparison = compare(range, node.entry.range);
+    if (comparison < 0) {
+      Node<V> left = remove(node.left, range, value);
+      return left == node.left ? node : balance(node.entry, left, node.right);
+    }
+    if (comparison > 0) {
+      Node<V> right = remove(node.right, range, value);
+      return right == node.right ? node : balance(node.entry, node.left, right);
+    }
+
+    if (node.entry.value.equals(value)) {
+      return removeNode(node);
+    }
+
+    // Rotations can move entries with an equal range to either side, so look at both.
+    Node<V> left = remove(node.left, range, value);
+    if (left != node.left) {
+      return balance(node.entry, left, node.right);
+    }
+    Node<V> right = remove(node.right, range, value);
+    return right == node.right ? node : balance(node.entry, node.left, right);
+  }
+
+  private static <V> Node<V> removeNode(Node<V> node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    if (node.right == null) {
+      return node.left;
+    }
+
+    Node<V> successor = node.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor.entry, node.left, removeFirst(node.right));
+  }
+
+  private static <V> Node<V> removeFirst(Node<V> node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node.entry, removeFirst(node.left), node.right);
+  }
+
+  private static <V> Node<V> balance(Entry<V> entry, Node<V> left, Node<V> right) {
+    int difference = height(left) - height(right);
+
+    if (difference > 1) {
+      if (height(left.left) < height(left.right)) {
+        left = rotateLeft(left.entry, left.left, left.right);
+      }
+      return rotateRight(entry, left, right);
+    }
+
+    if (difference < -1) {
+      if (height(right.right) < height(right.left)) {
+        right = rotateRight(right.entry, right.left, right.right);
+      }
+      return rotateLeft(entry, left, right);
+    }
+
+    return new Node<>(entry, left, right);
+  }
+
+  private static <V> Node<V> rotateLeft(Entry<V> entry, Node<V> left, Node<V> right) {
+    return new Node<>(right.entry, new Node<>(entry, left, right.left), right.right);
+  }
+
+  private static <V> Node<V> rotateRight(Entry<V> entry, Node<V> left, Node<V> right) {
+    return new Node<>(left.entry, left.left, new Node<>(entry, left.right, right));
+  }
+
+  private static int compare(EpochRange a, EpochRange b) {
+    int byStart = Long.compare(a.start(), b.start());
+    return byStart != 0 ? byStart : Long.compare(a.end(), b.end());
+  }
+
+  private static int height(Node<?> node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static int size(Node<?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static long maxEnd(Node<?> node) {
+    return node == null ? Long.MIN_VALUE : node.maxEnd;
+  }
+}
@@ -39,6 +39,19 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // Whether to return the times the most optional attendees can make instead of requiring all of
+  // them to be free.
+  private boolean maximize_optional_attendees;
+
+  // How many of the slots with the fewest conflicting attendees to return when no time works for
+  // all mandatory attendees. Zero returns nothing in that case.
+  private int least_conflict_slots;
+
+  /**
+   * The most slots {@link #setLeastConflictSlots} accepts: one for every minute of the day.
+   */
+  public static final int MAX_LEAST_CONFLICT_SLOTS = 24 * 60;
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
@@ -67,6 +80,52 @@ public final class MeetingRequest {
     }
   }
 
+  /**
+   * Sets whether the meeting should go wherever the largest number of optional attendees can come,
+   * rather than only where every optional attendee can come.
+   */
+  public void setMaximizeOptionalAttendees(boolean maximizeOptionalAttendees) {
+    this.maximize_optional_attendees = maximizeOptionalAttendees;
+  }
+
+  /**
+   * Returns whether the meeting should go wherever the largest number of optional attendees can
+   * come.
+   */
+  public boolean shouldMaximizeOptionalAttendees() {
+    return maximize_optional_attendees;
+  }
+
+  /**
+   * Sets how many slots to suggest when no time works for all mandatory attendees. The suggestions
+   * are the slots the fewest attendees, mandatory or optional, are busy for.
+   *
+   * @throws IllegalArgumentException if {@code leastConflictSlots} is negative or more than
+   *     {@link #MAX_LEAST_CONFLICT_SLOTS}
+   */
+  public void setLeastConflictSlots(int leastConflictSlots) {
+    if (leastConflictSlots < 0 || leastConflictSlots > MAX_LEAST_CONFLICT_SLOTS) {
+      throw new IllegalArgumentException(
+          "leastConflictSlots must be from 0 to " + MAX_LEAST_CONFLICT_SLOTS);
+    }
+    this.least_conflict_slots = leastConflictSlots;
+  }
+
+  /**
+   * Returns how many slots to suggest when no time works for all mandatory attendees.
+   */
+  public int getLeastConflictSlots() {
+    return least_conflict_slots;
+  }
+
+  /**
+   * Returns whether this request is one {@link #setLeastConflictSlots} could have produced. Requests
+   * read from JSON skip the setter, so servlets check this before using them.
+   */
+  public boolean hasValidLeastConflictSlots() {
+    return least_conflict_slots >= 0 && least_conflict_slots <= MAX_LEAST_CONFLICT_SLOTS;
+  }
+
   /**
    * Returns the duration of the meeting in minutes.
    */
@@ -0,0 +1,496 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places several meetings at once so that nobody has to be in two of them at the same time, e.g.
+ * the sessions of an interview loop. {@link FindMeetingQuery} places each meeting on its own, so
+ * meetings with people in common can end up at the same time.
+ *
+ * <p>Each meeting starts out with every start time that works for its attendees. If the meetings
+ * fit at all, they also fit with every meeting moved as early as it will go, where each one starts
+ * either at the start of a free range or just as another meeting with some of the same people ends.
+ * So the search only tries those start times. It places the meeting with the fewest start times
+ * left first, and every placement removes the times it
+ * takes from the other meetings those attendees are in. A placement that leaves another meeting
+ * with no time at all is undone straight away. Meetings that share nobody can't get in each other's
+ * way, so each group of connected meetings is solved on its own, in parallel.
+ *
+ * <p>Only mandatory attendees are taken into account, or the optional ones for a meeting that has
+ * no mandatory attendees, as in {@link FindMeetingQuery}. Meetings that fit are placed as early in
+ * the day as possible.
+ */
+public final class MeetingScheduler {
+  private final BusyIndex index;
+
+  /**
+   * Creates a scheduler that places meetings around the busy times in {@code index}, which must
+   * not change while meetings are being scheduled, e.g. a snapshot.
+   */
+  public MeetingScheduler(BusyIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * Returns a time for every meeting in {@code requests} such that nobody has to be in two places
+   * at once. If there is no such plan, or it isn't found within {@code timeBudget}, returns the
+   * plan placing the most meetings found so far.
+   */
+  public Plan schedule(List<MeetingRequest> requests, long timeBudget, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeBudget);
+
+    List<Meeting> meetings = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      meetings.add(new Meeting(i, requests.get(i)));
+    }
+
+    // Meetings nobody can make at all are left out, so they don't stop the others being placed.
+    List<Meeting> schedulable = new ArrayList<>();
+    for (Meeting meeting : meetings) {
+      if (!meeting.startTimes.isEmpty()) {
+        schedulable.add(meeting);
+      }
+    }
+
+    List<Search> searches = new ArrayList<>();
+    for (List<Meeting> component : findComponents(schedulable)) {
+      searches.add(new Search(component, deadline));
+    }
+    if (searches.size() == 1) {
+      searches.get(0).run();
+    } else {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>(searches.size());
+      for (Search search : searches) {
+        tasks.add(ForkJoinPool.commonPool().submit(search));
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+    }
+
+    TimeRange[] times = new TimeRange[requests.size()];
+    boolean timedOut = false;
+    for (Search search : searches) {
+      search.copyBestTimes(times);
+      timedOut |= search.timedOut;
+    }
+    return new Plan(Arrays.asList(times), timedOut);
+  }
+
+  /**
+   * Splits {@code meetings} into groups such that no two meetings in different groups share an
+   * attendee.
+   */
+  private static List<List<Meeting>> findComponents(List<Meeting> meetings) {
+    int[] parents = new int[meetings.size()];
+    for (int i = 0; i < parents.length; i++) {
+      parents[i] = i;
+    }
+
+    Map<String, Integer> firstMeetingByAttendee = new HashMap<>();
+    for (int i = 0; i < meetings.size(); i++) {
+      for (String attendee : meetings.get(i).attendees) {
+        Integer first = firstMeetingByAttendee.putIfAbsent(attendee, i);
+        if (first != null) {
+          parents[find(parents, i)] = find(parents, first);
+        }
+      }
+    }
+
+    Map<Integer, List<Meeting>> componentsByRoot = new HashMap<>();
+    for (int i = 0; i < meetings.size(); i++) {
+      componentsByRoot.computeIfAbsent(find(parents, i), root -> new ArrayList<>())
+          .add(meetings.get(i));
+    }
+    return new ArrayList<>(componentsByRoot.values());
+  }
+
+  private static int find(int[] parents, int i) {
+    while (parents[i] != i) {
+      parents[i] = parents[parents[i]];
+      i = parents[i];
+    }
+    return i;
+  }
+
+  /**
+   * Returns the times in {@code startTimes} that remain once a meeting lasting {@code duration}
+   * minutes may no longer overlap {@code [start, end)}.
+   */
+  private static IntervalSet withoutOverlapping(
+      IntervalSet startTimes, int duration, int start, int end) {
+    int from = Math.max(TimeRange.START_OF_DAY, start - duration + 1);
+    int to = Math.min(TimeRange.WHOLE_DAY.end(), end);
+    if (from >= to) {
+      return startTimes;
+    }
+    return startTimes.intersect(IntervalSet.of(from, to).complementWithinDay());
+  }
+
+  private static boolean contains(IntervalSet startTimes, int start) {
+    int low = 0;
+    int high = startTimes.size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (startTimes.end(middle) <= start) {
+        low = middle + 1;
+      } else if (startTimes.start(middle) > start) {
+        high = middle - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long count(IntervalSet startTimes) {
+    long count = 0;
+    for (int i = 0; i < startTimes.size(); i++) {
+      count += startTimes.end(i) - startTimes.start(i);
+    }
+    return count;
+  }
+
+  /**
+   * The result of {@link #schedule}.
+   */
+  public static final class Plan {
+    private final List<TimeRange> times;
+    private final boolean timedOut;
+
+    private Plan(List<TimeRange> times, boolean timedOut) {
+      this.times = Collections.unmodifiableList(times);
+      this.timedOut = timedOut;
+    }
+
+    /**
+     * Returns the time of each request, in the order of the requests, with null for the ones that
+     * could not be placed.
+     */
+    public List<TimeRange> getTimes() {
+      return times;
+    }
+
+    /**
+     * Returns the time of request number {@code index}, if it could be placed.
+     */
+    public Optional<TimeRange> getTime(int index) {
+      return Optional.ofNullable(times.get(index));
+    }
+
+    /**
+     * Returns the number of requests that could be placed.
+     */
+    public int getScheduledCount() {
+      int count = 0;
+      for (TimeRange time : times) {
+        if (time != null) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    /**
+     * Returns whether every request could be placed.
+     */
+    public boolean isComplete() {
+      return getScheduledCount() == times.size();
+    }
+
+    /**
+     * Returns whether the time budget ran out before the search finished. A plan that timed out
+     * may place fewer meetings than one that didn't.
+     */
+    public boolean isTimedOut() {
+      return timedOut;
+    }
+  }
+
+  /**
+   * One request and the times it could start at before any meeting is placed.
+   */
+  private final class Meeting {
+    private final int requestIndex;
+    private final int duration;
+    private final Collection<String> attendees;
+    private final IntervalSet startTimes;
+
+    private Meeting(int requestIndex, MeetingRequest request) {
+      this.requestIndex = requestIndex;
+      this.attendees = request.getAttendees().isEmpty()
+          ? request.getOptionalAttendees()
+          : request.getAttendees();
+
+      if (request.getDuration() > TimeRange.WHOLE_DAY.duration() || request.getDuration() <= 0) {
+        this.duration = 0;
+        this.startTimes = IntervalSet.empty();
+        return;
+      }
+      this.duration = (int) request.getDuration();
+
+      // A free range from a to b can hold a meeting starting anywhere from a to b - duration.
+      IntervalSet freeIntervals =
+          index.findBusyIntervals(attendees).complementWithinDay().filterMinLength(duration);
+      IntervalSet.Builder startTimes = new IntervalSet.Builder(freeIntervals.size());
+      for (int i = 0; i < freeIntervals.size(); i++) {
+        startTimes.add(freeIntervals.start(i), freeIntervals.end(i) - duration + 1);
+      }
+      this.startTimes = startTimes.build();
+    }
+  }
+
+  /**
+   * Backtracking search for times for one group of connected meetings.
+   */
+  private static final class Search implements Runnable {
+    private final List<Meeting> meetings;
+    private final long deadline;
+
+    // Indices into meetings of the other meetings each meeting shares an attendee with.
+    private final int[][] neighbors;
+
+    // The start times worth trying for each meeting, in ascending order.
+    private final int[][] candidateStarts;
+
+    // Start time of each placed meeting, or -1.
+    private final int[] starts;
+    private final IntervalSet[] startTimes;
+    private int placedCount = 0;
+
+    private int[] bestStarts;
+    private int bestCount = -1;
+    private boolean timedOut = false;
+
+    private Search(List<Meeting> meetings, long deadline) {
+      this.meetings = meetings;
+      this.deadline = deadline;
+      this.neighbors = findNeighbors(meetings);
+      this.starts = new int[meetings.size()];
+      Arrays.fill(starts, -1);
+      this.startTimes = new IntervalSet[meetings.size()];
+      for (int i = 0; i < startTimes.length; i++) {
+        startTimes[i] = meetings.get(i).startTimes;
+      }
+      this.candidateStarts = findCandidateStarts(meetings, neighbors);
+      recordIfBest();
+    }
+
+    /**
+     * Returns, for each meeting, every time it could start in a plan where no meeting can move any
+     * earlier: the start of one of its free ranges, or the end of a meeting it shares attendees with
+     * that starts at one of that meeting's own such times.
+     */
+    private static int[][] findCandidateStarts(List<Meeting> meetings, int[][] neighbors) {
+      boolean[][] found = new boolean[meetings.size()][TimeRange.WHOLE_DAY.end() + 1];
+      Deque<int[]> unexplored = new ArrayDeque<>();
+      for (int i = 0; i < meetings.size(); i++) {
+        IntervalSet startTimes = meetings.get(i).startTimes;
+        for (int j = 0; j < startTimes.size(); j++) {
+          addCandidate(meetings, found, unexplored, i, startTimes.start(j));
+        }
+      }
+
+      while (!unexplored.isEmpty()) {
+        int[] candidate = unexplored.remove();
+        int end = candidate[1] + meetings.get(candidate[0]).duration;
+        for (int other : neighbors[candidate[0]]) {
+          addCandidate(meetings, found, unexplored, other, end);
+        }
+      }
+
+      int[][] candidateStarts = new int[meetings.size()][];
+      for (int i = 0; i < meetings.size(); i++) {
+        int[] starts = new int[found[i].length];
+        int count = 0;
+        for (int start = 0; start < found[i].length; start++) {
+          if (found[i][start]) {
+            starts[count++] = start;
+          }
+        }
+        candidateStarts[i] = Arrays.copyOf(starts, count);
+      }
+      return candidateStarts;
+    }
+
+    private static void addCandidate(List<Meeting> meetings, boolean[][] found,
+        Deque<int[]> unexplored, int meeting, int start) {
+      if (start < found[meeting].length && !found[meeting][start]
+          && contains(meetings.get(meeting).startTimes, start)) {
+        found[meeting][start] = true;
+        unexplored.add(new int[] {meeting, start});
+      }
+    }
+
+    private static int[][] findNeighbors(List<Meeting> meetings) {
+      Map<String, List<Integer>> meetingsByAttendee = new HashMap<>();
+      for (int i = 0; i < meetings.size(); i++) {
+        for (String attendee : meetings.get(i).attendees) {
+          meetingsByAttendee.computeIfAbsent(attendee, key -> new ArrayList<>()).add(i);
+        }
+      }
+
+      int[][] neighbors = new int[meetings.size()][];
+      for (int i = 0; i < meetings.size(); i++) {
+        List<Integer> others = new ArrayList<>();
+        for (String attendee : meetings.get(i).attendees) {
+          for (int other : meetingsByAttendee.get(attendee)) {
+            if (other != i && !others.contains(other)) {
+              others.add(other);
+            }
+          }
+        }
+        neighbors[i] = others.stream().mapToInt(Integer::intValue).toArray();
+      }
+      return neighbors;
+    }
+
+    @Override
+    public void run() {
+      search();
+    }
+
+    /**
+     * Places the remaining meetings. Returns true once all of them are placed, or false if there is
+     * no way to or the time is up.
+     */
+    private boolean search() {
+      if (placedCount == meetings.size()) {
+        return true;
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        timedOut = true;
+        return false;
+      }
+
+      int meeting = pickMostConstrained();
+      int duration = meetings.get(meeting).duration;
+
+      for (int start : candidateStarts[meeting]) {
+        if (!contains(startTimes[meeting], start)) {
+          // Taken by a meeting placed earlier.
+          continue;
+        }
+
+        IntervalSet[] saved = place(meeting, start, start + duration);
+        recordIfBest();
+
+        if (saved != null && search()) {
+          return true;
+        }
+        unplace(meeting, saved);
+        if (timedOut) {
+          return false;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Returns the unplaced meeting with the fewest start times left, preferring the one in the way
+     * of the most others.
+     */
+    private int pickMostConstrained() {
+      int best = -1;
+      long bestCount = Long.MAX_VALUE;
+      int bestDegree = -1;
+      for (int i = 0; i < meetings.size(); i++) {
+        if (starts[i] >= 0) {
+          continue;
+        }
+
+        long count = count(startTimes[i]);
+        int degree = neighbors[i].length;
+        if (count < bestCount || (count == bestCount && degree > bestDegree)) {
+          best = i;
+          bestCount = count;
+          bestDegree = degree;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Places {@code meeting} at {@code [start, end)} and removes that time from the meetings it
+     * shares attendees with. Returns their start times from before, or null if one of them has no
+     * time left, in which case the start times are left as they were.
+     */
+    private IntervalSet[] place(int meeting, int start, int end) {
+      starts[meeting] = start;
+      placedCount++;
+
+      IntervalSet[] saved = new IntervalSet[neighbors[meeting].length];
+      for (int i = 0; i < saved.length; i++) {
+        int other = neighbors[meeting][i];
+        saved[i] = startTimes[other];
+        if (starts[other] >= 0) {
+          continue;
+        }
+
+        IntervalSet remaining =
+            withoutOverlapping(startTimes[other], meetings.get(other).duration, start, end);
+        if (remaining.isEmpty()) {
+          // Put back what was already removed; the caller only has to unplace the meeting.
+          for (int j = 0; j < i; j++) {
+            startTimes[neighbors[meeting][j]] = saved[j];
+          }
+          return null;
+        }
+        startTimes[other] = remaining;
+      }
+      return saved;
+    }
+
+    private void unplace(int meeting, IntervalSet[] saved) {
+      starts[meeting] = -1;
+      placedCount--;
+      if (saved != null) {
+        for (int i = 0; i < saved.length; i++) {
+          startTimes[neighbors[meeting][i]] = saved[i];
+        }
+      }
+    }
+
+    private void recordIfBest() {
+      if (placedCount > bestCount) {
+        bestCount = placedCount;
+        bestStarts = starts.clone();
+      }
+    }
+
+    private void copyBestTimes(TimeRange[] times) {
+      for (int i = 0; i < meetings.size(); i++) {
+        if (bestStarts[i] >= 0) {
+          Meeting meeting = meetings.get(i);
+          times[meeting.requestIndex] = TimeRange.fromStartDuration(bestStarts[i], meeting.duration);
+        }
+      }
+    }
+  }
+}
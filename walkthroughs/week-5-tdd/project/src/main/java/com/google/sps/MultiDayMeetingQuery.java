@@ -0,0 +1,237 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Finds meeting times over a window of any number of days, e.g. "the first free hour this week".
+ * This is the multi-day counterpart of {@link FindMeetingQuery}: it takes the same
+ * {@link MeetingRequest} and treats optional attendees the same way, but works on
+ * {@link EpochRange}s instead of the minutes of a single day.
+ *
+ * <p>Every attendee's events are kept in an {@link IntervalTree}, so a query only visits the part of
+ * each attendee's tree near the window instead of all of their events.
+ *
+ * <p>Recurring events are stored once per series, under the range from their first to their last
+ * occurrence. A query only creates the occurrences that fall inside its window, so a daily standup
+ * costs the same whether it runs for a week or for years.
+ */
+public final class MultiDayMeetingQuery {
+  private final Map<String, IntervalTree<Event>> eventsByAttendee = new HashMap<>();
+  private final Map<String, IntervalTree<Series>> seriesByAttendee = new HashMap<>();
+
+  /**
+   * Adds {@code event}, which takes place on the day {@code epochDay} days after the epoch.
+   */
+  public void addEvent(long epochDay, Event event) {
+    EpochRange when = EpochRange.onDay(epochDay, event.getWhen());
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    for (int i = 0; i < event.getAttendeeCount(); i++) {
+      String attendee = registry.getName(event.getAttendeeId(i));
+      eventsByAttendee.put(attendee,
+          eventsByAttendee.getOrDefault(attendee, IntervalTree.empty()).with(when, event));
+    }
+  }
+
+  /**
+   * Undoes a previous call to {@link #addEvent} with the same day and an equal event.
+   */
+  public void removeEvent(long epochDay, Event event) {
+    EpochRange when = EpochRange.onDay(epochDay, event.getWhen());
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    for (int i = 0; i < event.getAttendeeCount(); i++) {
+      String attendee = registry.getName(event.getAttendeeId(i));
+      IntervalTree<Event> events = eventsByAttendee.get(attendee);
+      if (events == null) {
+        continue;
+      }
+
+      IntervalTree<Event> remaining = events.without(when, event);
+      if (remaining.isEmpty()) {
+        eventsByAttendee.remove(attendee);
+      } else {
+        eventsByAttendee.put(attendee, remaining);
+      }
+    }
+  }
+
+  /**
+   * Adds an event that takes place at {@code event.getWhen()} on every day of {@code recurrence}.
+   */
+  public void addRecurringEvent(Recurrence recurrence, Event event) {
+    Series series = new Series(recurrence, event);
+    EpochRange span = recurrence.span(event.getWhen());
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    for (int i = 0; i < event.getAttendeeCount(); i++) {
+      String attendee = registry.getName(event.getAttendeeId(i));
+      seriesByAttendee.put(attendee,
+          seriesByAttendee.getOrDefault(attendee, IntervalTree.empty()).with(span, series));
+    }
+  }
+
+  /**
+   * Undoes a previous call to {@link #addRecurringEvent} with an equal recurrence and event.
+   */
+  public void removeRecurringEvent(Recurrence recurrence, Event event) {
+    Series series = new Series(recurrence, event);
+    EpochRange span = recurrence.span(event.getWhen());
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+    for (int i = 0; i < event.getAttendeeCount(); i++) {
+      String attendee = registry.getName(event.getAttendeeId(i));
+      IntervalTree<Series> allSeries = seriesByAttendee.get(attendee);
+      if (allSeries == null) {
+        continue;
+      }
+
+      IntervalTree<Series> remaining = allSeries.without(span, series);
+      if (remaining.isEmpty()) {
+        seriesByAttendee.remove(attendee);
+      } else {
+        seriesByAttendee.put(attendee, remaining);
+      }
+    }
+  }
+
+  /**
+   * Returns all ranges inside {@code window} that are long enough to hold the requested meeting,
+   * sorted by start time. As in {@link FindMeetingQuery#query}, optional attendees are only taken
+   * into account if at least one range works for all of them.
+   */
+  public ImmutableList<EpochRange> query(MeetingRequest request, EpochRange window) {
+    ImmutableList<EpochRange> mandatoryBusy = findBusyRanges(request.getAttendees(), window);
+
+    if (!request.getOptionalAttendees().isEmpty()) {
+      List<EpochRange> allBusy = new ArrayList<>(mandatoryBusy);
+      allBusy.addAll(findBusyRanges(request.getOptionalAttendees(), window));
+      Collections.sort(allBusy, EpochRange.ORDER_BY_START);
+      ImmutableList<EpochRange> freeRangesForAllAttendees =
+          findFreeRanges(allBusy, window, request.getDuration());
+
+      // With no mandatory attendees there is nothing to fall back to.
+      if (!freeRangesForAllAttendees.isEmpty() || request.getAttendees().isEmpty()) {
+        return freeRangesForAllAttendees;
+      }
+    }
+
+    return findFreeRanges(mandatoryBusy, window, request.getDuration());
+  }
+
+  /**
+   * Returns the earliest time inside {@code window} that the requested meeting could take place,
+   * as a range exactly as long as the meeting.
+   */
+  public Optional<EpochRange> findFirst(MeetingRequest request, EpochRange window) {
+    ImmutableList<EpochRange> freeRanges = query(request, window);
+    if (freeRanges.isEmpty()) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+        EpochRange.fromStartDuration(freeRanges.get(0).start(), request.getDuration()));
+  }
+
+  /**
+   * Returns the times inside {@code window} at least one of {@code attendees} is busy, sorted by
+   * start time. Ranges may overlap.
+   */
+  private ImmutableList<EpochRange> findBusyRanges(Collection<String> attendees, EpochRange window) {
+    List<EpochRange> busyRanges = new ArrayList<>();
+    for (String attendee : attendees) {
+      IntervalTree<Event> events = eventsByAttendee.get(attendee);
+      if (events == null) {
+        continue;
+      }
+
+      for (IntervalTree.Entry<Event> entry : events.findOverlapping(window)) {
+        busyRanges.add(entry.range());
+      }
+    }
+
+    for (String attendee : attendees) {
+      IntervalTree<Series> allSeries = seriesByAttendee.get(attendee);
+      if (allSeries == null) {
+        continue;
+      }
+
+      for (IntervalTree.Entry<Series> entry : allSeries.findOverlapping(window)) {
+        Series series = entry.value();
+        busyRanges.addAll(
+            series.recurrence.occurrencesOverlapping(series.event.getWhen(), window));
+      }
+    }
+
+    // Each attendee's ranges are already sorted, so this is only a merge of sorted runs.
+    Collections.sort(busyRanges, EpochRange.ORDER_BY_START);
+    return ImmutableList.copyOf(busyRanges);
+  }
+
+  /**
+   * Returns the gaps between {@code sortedBusyRanges} inside {@code window} that are at least
+   * {@code duration} minutes long.
+   */
+  private static ImmutableList<EpochRange> findFreeRanges(
+      List<EpochRange> sortedBusyRanges, EpochRange window, long duration) {
+    ImmutableList.Builder<EpochRange> freeRanges = ImmutableList.builder();
+
+    long startFreeRange = window.start();
+    for (EpochRange busyRange : sortedBusyRanges) {
+      long endFreeRange = Math.min(busyRange.start(), window.end());
+      if (duration <= endFreeRange - startFreeRange) {
+        freeRanges.add(EpochRange.fromStartEnd(startFreeRange, endFreeRange));
+      }
+
+      // Overlapping ranges must not move the start of the next gap backwards.
+      startFreeRange = Math.max(startFreeRange, busyRange.end());
+    }
+
+    if (duration <= window.end() - startFreeRange) {
+      freeRanges.add(EpochRange.fromStartEnd(startFreeRange, window.end()));
+    }
+
+    return freeRanges.build();
+  }
+
+  /**
+   * A recurring event. Only used as a value in the interval trees.
+   */
+  private static final class Series {
+    private final Recurrence recurrence;
+    private final Event event;
+
+    private Series(Recurrence recurrence, Event event) {
+      this.recurrence = recurrence;
+      this.event = event;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Series && recurrence.equals(((Series) other).recurrence)
+          && event.equals(((Series) other).event);
+    }
+
+    @Override
+    public int hashCode() {
+      return recurrence.hashCode() * 31 + event.hashCode();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Rule for repeating an event: every {@code interval} days or weeks, from a first day up to and
+ * including an end date. Occurrences are never stored; {@link #occurrencesOverlapping} works out
+ * the ones inside a window with a little arithmetic, so a series costs the same no matter how long
+ * it runs.
+ */
+public final class Recurrence {
+  private static final long DAYS_PER_WEEK = 7;
+
+  private final long firstEpochDay;
+  private final long lastEpochDay;
+
+  // Days from one occurrence to the next.
+  private final long period;
+
+  private Recurrence(long firstEpochDay, long lastEpochDay, long period) {
+    if (lastEpochDay < firstEpochDay) {
+      throw new IllegalArgumentException("end date cannot come before the first day");
+    }
+
+    if (period <= 0) {
+      throw new IllegalArgumentException("interval must be positive");
+    }
+
+    this.firstEpochDay = firstEpochDay;
+    this.lastEpochDay = lastEpochDay;
+    this.period = period;
+  }
+
+  /**
+   * Repeats every {@code interval} days, starting on {@code firstEpochDay} and ending on or before
+   * {@code lastEpochDay}.
+   */
+  public static Recurrence daily(long firstEpochDay, long lastEpochDay, int interval) {
+    return new Recurrence(firstEpochDay, lastEpochDay, interval);
+  }
+
+  /**
+   * Repeats every {@code interval} weeks on the weekday of {@code firstEpochDay}, ending on or
+   * before {@code lastEpochDay}.
+   */
+  public static Recurrence weekly(long firstEpochDay, long lastEpochDay, int interval) {
+    return new Recurrence(firstEpochDay, lastEpochDay, interval * DAYS_PER_WEEK);
+  }
+
+  /**
+   * Returns the number of occurrences.
+   */
+  public long count() {
+    return (lastEpochDay - firstEpochDay) / period + 1;
+  }
+
+  /**
+   * Returns the range from the start of the first occurrence of {@code when} to the end of the last
+   * one.
+   */
+  public EpochRange span(TimeRange when) {
+    long lastOccurrenceDay = firstEpochDay + (count() - 1) * period;
+    return EpochRange.fromStartEnd(EpochRange.onDay(firstEpochDay, when).start(),
+        EpochRange.onDay(lastOccurrenceDay, when).end());
+  }
+
+  /**
+   * Returns the occurrences of {@code when} that overlap {@code window}, sorted by start time. Only
+   * those occurrences are created.
+   */
+  public ImmutableList<EpochRange> occurrencesOverlapping(TimeRange when, EpochRange window) {
+    long periodMinutes = period * EpochRange.MINUTES_PER_DAY;
+    long firstStart = EpochRange.onDay(firstEpochDay, when).start();
+
+    // Occurrence k runs from firstStart + k * periodMinutes for when.duration() minutes. It
+    // overlaps the window if it ends after the window starts and starts before the window ends.
+    long first = Math.max(0,
+        Math.floorDiv(window.start() - when.duration() - firstStart, periodMinutes) + 1);
+    long last = Math.min(count() - 1,
+        Math.floorDiv(window.end() - 1 - firstStart, periodMinutes));
+
+    ImmutableList.Builder<EpochRange> occurrences = ImmutableList.builder();
+    for (long k = first; k <= last; k++) {
+      occurrences.add(EpochRange.fromStartDuration(firstStart + k * periodMinutes, when.duration()));
+    }
+    return occurrences.build();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Recurrence)) {
+      return false;
+    }
+
+    Recurrence that = (Recurrence) other;
+    return firstEpochDay == that.firstEpochDay && lastEpochDay == that.lastEpochDay
+        && period == that.period;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(firstEpochDay) * 31 * 31 + Long.hashCode(lastEpochDay) * 31
+        + Long.hashCode(period);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Recurrence{days %d to %d, every %d days}", firstEpochDay, lastEpochDay,
+        period);
+  }
+}
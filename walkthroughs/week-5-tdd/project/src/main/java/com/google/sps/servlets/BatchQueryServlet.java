@@ -0,0 +1,93 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.BusyIndex;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers an array of meeting requests in one call. The requests are evaluated in parallel against
+ * one snapshot of the calendar, and the answers are written back as a JSON array in the same order
+ * as the requests, each one as soon as it is ready.
+ */
+@WebServlet("/batch-query")
+public class BatchQueryServlet extends HttpServlet {
+  private static final Type TIME_RANGES_TYPE = new TypeToken<Collection<TimeRange>>() {}.getType();
+
+  private static final ForkJoinPool pool = new ForkJoinPool();
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to an array of MeetingRequests.
+    MeetingRequest[] meetingRequests = gson.fromJson(request.getReader(), MeetingRequest[].class);
+    if (meetingRequests == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "expected an array of requests");
+      return;
+    }
+    // Check every request up front: once the first answer is written, the response can no longer
+    // turn into an error.
+    for (int i = 0; i < meetingRequests.length; i++) {
+      if (meetingRequests[i] == null) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "request " + i + " is null");
+        return;
+      }
+      if (!meetingRequests[i].hasValidLeastConflictSlots()) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "request " + i
+            + ": least_conflict_slots must be from 0 to " + MeetingRequest.MAX_LEAST_CONFLICT_SLOTS);
+        return;
+      }
+    }
+
+    // Answer every request against the same snapshot. Snapshots are read-only, so every worker
+    // thread can share it.
+    BusyIndex busyIndex = CalendarState.eventStore.snapshot().getBusyIndex();
+
+    // Start every query before writing anything so they all run at the same time.
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+    List<ForkJoinTask<Collection<TimeRange>>> answers = new ArrayList<>();
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      answers.add(pool.submit(() -> findMeetingQuery.query(busyIndex, meetingRequest)));
+    }
+
+    // Send each answer as soon as it and the ones before it are done.
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginArray();
+    for (ForkJoinTask<Collection<TimeRange>> answer : answers) {
+      gson.toJson(answer.join(), TIME_RANGES_TYPE, writer);
+      writer.flush();
+    }
+    writer.endArray();
+    writer.flush();
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.gson.JsonObject;
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports who is busy during the window from the {@code start} parameter (inclusive) to the
+ * {@code end} parameter (exclusive), both in minutes since the start of the day: the events that
+ * overlap it, sorted by start time, and the sorted names of everyone attending them.
+ */
+@WebServlet("/busy-during")
+public class BusyDuringServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Integer start = parseMinute(request.getParameter("start"));
+    Integer end = parseMinute(request.getParameter("end"));
+    if (start == null || end == null || end < start) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "start and end must be minutes of the day, with end not before start");
+      return;
+    }
+
+    ImmutableList<Event> events = CalendarState.eventStore.snapshot()
+        .findOverlapping(TimeRange.fromStartEnd(start, end, false));
+    SortedSet<String> attendees = new TreeSet<>();
+    for (Event event : events) {
+      attendees.addAll(event.getAttendees());
+    }
+
+    JsonObject json = new JsonObject();
+    json.add("events", CalendarState.eventGson.toJsonTree(events));
+    json.add("attendees", CalendarState.eventGson.toJsonTree(attendees));
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(json);
+  }
+
+  private static Integer parseMinute(String parameter) {
+    Integer minute = parameter == null ? null : Ints.tryParse(parameter);
+    if (minute == null || minute < TimeRange.START_OF_DAY || minute > TimeRange.WHOLE_DAY.end()) {
+      return null;
+    }
+    return minute;
+  }
+}
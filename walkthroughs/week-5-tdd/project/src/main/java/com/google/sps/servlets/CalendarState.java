@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.sps.CachedMeetingQuery;
+import com.google.sps.Event;
+import com.google.sps.EventLog;
+import com.google.sps.EventStore;
+import com.google.sps.Events;
+import com.google.sps.HotGroupTracker;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * The calendar shared by every servlet. It starts out with {@link Events#events} and changes as
+ * events are added and removed.
+ *
+ * <p>If the {@code calendar.eventLog} system property names a file, the calendar is kept in an
+ * {@link EventLog} there and survives restarts. A new log starts out with {@link Events#events}.
+ */
+final class CalendarState {
+  private static final String EVENT_LOG_PROPERTY = "calendar.eventLog";
+
+  // Groups looked up about 100 times get their merged busy times kept ready, up to 64 groups. Only
+  // one lookup in 10 is counted.
+  static final HotGroupTracker hotGroups = new HotGroupTracker(10, 64, 10);
+
+  static final EventStore eventStore = createEventStore();
+
+  // Answers repeated requests from the cache; anything else only looks at the busy times of the
+  // people it asks about.
+  static final CachedMeetingQuery meetingQuery = new CachedMeetingQuery(eventStore, 1000);
+
+  // Reads and writes events in the shape script.js uses.
+  static final Gson eventGson = new GsonBuilder()
+      .registerTypeAdapter(Event.class, new EventSerializer())
+      .registerTypeAdapter(Event.class, new EventDeserializer())
+      .create();
+
+  private CalendarState() {
+    // Disallow instances.
+  }
+
+  private static EventStore createEventStore() {
+    String logPath = System.getProperty(EVENT_LOG_PROPERTY);
+    if (logPath == null) {
+      EventStore store = new EventStore(Arrays.asList(Events.events));
+      store.trackHotGroups(hotGroups);
+      return store;
+    }
+
+    try {
+      boolean isNew = !Files.exists(Paths.get(logPath));
+      EventStore store = new EventStore(EventLog.open(Paths.get(logPath)));
+      store.trackHotGroups(hotGroups);
+      if (isNew) {
+        store.addAll(Arrays.asList(Events.events));
+      }
+      return store;
+    } catch (IOException e) {
+      throw new UncheckedIOException("cannot open event log " + logPath, e);
+    }
+  }
+}
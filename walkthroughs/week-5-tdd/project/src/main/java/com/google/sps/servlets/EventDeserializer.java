@@ -0,0 +1,70 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads an {@link Event} in the shape {@link EventSerializer} writes: a title, a "when" with a start
+ * and a duration in minutes, and a list of attendee names.
+ */
+final class EventDeserializer implements JsonDeserializer<Event> {
+  private static final Type NAMES_TYPE = new TypeToken<List<String>>() {}.getType();
+
+  @Override
+  public Event deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
+    if (!json.isJsonObject()) {
+      throw new JsonParseException("expected an event object");
+    }
+
+    JsonObject event = json.getAsJsonObject();
+    JsonObject when = event.getAsJsonObject("when");
+    if (!event.has("title") || when == null || !when.has("start") || !when.has("duration")
+        || !event.has("attendees")) {
+      throw new JsonParseException("an event needs a title, a start, a duration and attendees");
+    }
+
+    int start;
+    int duration;
+    String title;
+    try {
+      start = when.get("start").getAsInt();
+      duration = when.get("duration").getAsInt();
+      title = event.get("title").getAsString();
+    } catch (RuntimeException e) {
+      // Gson throws several kinds of exception for values of the wrong type.
+      throw new JsonParseException("malformed event", e);
+    }
+    if (start < TimeRange.START_OF_DAY || duration < 0
+        || start + duration > TimeRange.WHOLE_DAY.end()) {
+      throw new JsonParseException("an event must fit inside one day");
+    }
+
+    List<String> attendees = context.deserialize(event.get("attendees"), NAMES_TYPE);
+    if (attendees == null || attendees.contains(null)) {
+      throw new JsonParseException("attendees must be a list of names");
+    }
+    return new Event(title, TimeRange.fromStartDuration(start, duration), attendees);
+  }
+}
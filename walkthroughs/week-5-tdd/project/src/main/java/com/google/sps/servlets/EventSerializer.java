@@ -0,0 +1,38 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.sps.Event;
+import java.lang.reflect.Type;
+
+/**
+ * Writes an {@link Event} in the shape script.js expects: its title, when it happens and the names
+ * of its attendees. Events keep attendee IDs internally, so the default reflection-based output
+ * would not contain any names.
+ */
+final class EventSerializer implements JsonSerializer<Event> {
+  @Override
+  public JsonElement serialize(Event event, Type type, JsonSerializationContext context) {
+    JsonObject json = new JsonObject();
+    json.addProperty("title", event.getTitle());
+    json.add("when", context.serialize(event.getWhen()));
+    json.add("attendees", context.serialize(event.getAttendees()));
+    return json;
+  }
+}
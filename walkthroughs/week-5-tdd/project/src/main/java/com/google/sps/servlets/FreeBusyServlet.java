@@ -0,0 +1,106 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonObject;
+import com.google.sps.AvailabilityBitmap;
+import com.google.sps.BusyIndex;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports when each person is busy, without the titles and attendee lists {@code /get-events}
+ * sends. Every person's day is an {@link AvailabilityBitmap} of {@link
+ * AvailabilityBitmap#BYTES_PER_DAY} bytes, one bit per minute, set when they are busy.
+ *
+ * <p>Repeated {@code attendee} parameters limit the answer to those people; otherwise it covers
+ * everyone with an event. People are sorted by name.
+ *
+ * <p>Clients that accept {@value #BINARY_CONTENT_TYPE} get a binary answer: a big-endian
+ * {@code int} count of people, then for each a big-endian unsigned {@code short} length and that
+ * many bytes of UTF-8 name followed by the bitmap bytes. Everyone else gets JSON mapping each name
+ * to the base64 of its bitmap bytes. A binary answer can't hold a name longer than
+ * {@value #MAX_NAME_BYTES} UTF-8 bytes, so asking for one is a 400.
+ */
+@WebServlet("/free-busy")
+public class FreeBusyServlet extends HttpServlet {
+  static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+
+  // The largest length the unsigned short before each name can hold.
+  static final int MAX_NAME_BYTES = 0xFFFF;
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    BusyIndex index = CalendarState.eventStore.snapshot().getBusyIndex();
+
+    String[] attendeeParameters = request.getParameterValues("attendee");
+    Collection<String> attendees =
+        attendeeParameters == null ? index.getAttendees() : Arrays.asList(attendeeParameters);
+    SortedSet<String> people = new TreeSet<>(attendees);
+
+    String accept = request.getHeader("Accept");
+    if (accept != null && accept.contains(BINARY_CONTENT_TYPE)) {
+      // Check every name before writing anything, so the stream is never cut short.
+      for (String person : people) {
+        if (person.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES) {
+          response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+              "names in a binary answer must be at most " + MAX_NAME_BYTES + " bytes");
+          return;
+        }
+      }
+      writeBinary(index, people, response);
+    } else {
+      writeJson(index, people, response);
+    }
+  }
+
+  private static void writeBinary(
+      BusyIndex index, SortedSet<String> people, HttpServletResponse response) throws IOException {
+    response.setContentType(BINARY_CONTENT_TYPE);
+    DataOutputStream out = new DataOutputStream(response.getOutputStream());
+    out.writeInt(people.size());
+    for (String person : people) {
+      byte[] name = person.getBytes(StandardCharsets.UTF_8);
+      out.writeShort(name.length);
+      out.write(name);
+      out.write(AvailabilityBitmap.of(index.getBusyIntervals(person)).toByteArray());
+    }
+    out.flush();
+  }
+
+  private static void writeJson(
+      BusyIndex index, SortedSet<String> people, HttpServletResponse response) throws IOException {
+    Base64.Encoder base64 = Base64.getEncoder();
+    JsonObject json = new JsonObject();
+    for (String person : people) {
+      json.addProperty(person,
+          base64.encodeToString(AvailabilityBitmap.of(index.getBusyIntervals(person)).toByteArray()));
+    }
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(json);
+  }
+}
@@ -14,8 +14,6 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
 import java.io.IOException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -26,8 +24,8 @@ import javax.servlet.http.HttpServletResponse;
 public class GetEventsServlet extends HttpServlet {
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    String jsonResponse =
+        CalendarState.eventGson.toJson(CalendarState.eventStore.snapshot().getEvents());
 
     // Send the JSON back as the response
     response.setContentType("application/json");
@@ -0,0 +1,43 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonObject;
+import com.google.sps.HotGroupTracker;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports how often group lookups find their merged busy times ready.
+ */
+@WebServlet("/hot-group-stats")
+public class HotGroupStatsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    HotGroupTracker tracker = CalendarState.hotGroups;
+
+    JsonObject json = new JsonObject();
+    json.addProperty("hotGroups", tracker.getHotGroupCount());
+    json.addProperty("fastPathLookups", tracker.getFastPathLookups());
+    json.addProperty("slowPathLookups", tracker.getSlowPathLookups());
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(json);
+  }
+}
@@ -14,13 +14,11 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
 import com.google.sps.TimeRange;
+import com.google.common.primitives.Ints;
 import com.google.gson.Gson;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Collection;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -35,11 +33,30 @@ public class QueryServlet extends HttpServlet {
 
     // Convert the JSON to an instance of MeetingRequest.
     MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "expected a request");
+      return;
+    }
+    if (!meetingRequest.hasValidLeastConflictSlots()) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "least_conflict_slots must be from 0 to " + MeetingRequest.MAX_LEAST_CONFLICT_SLOTS);
+      return;
+    }
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    // Find the possible meeting times. An optional "limit" parameter asks for only the earliest
+    // few, e.g. 1 for the next available slot, and stops looking once it has them.
+    Collection<TimeRange> answer;
+    String limitParameter = request.getParameter("limit");
+    if (limitParameter == null) {
+      answer = CalendarState.meetingQuery.query(meetingRequest);
+    } else {
+      Integer limit = Ints.tryParse(limitParameter);
+      if (limit == null || limit < 0) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "limit must be a non-negative integer");
+        return;
+      }
+      answer = CalendarState.meetingQuery.query(meetingRequest, limit);
+    }
 
     // Convert the times to JSON
     String jsonResponse = gson.toJson(answer);
@@ -0,0 +1,84 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.common.primitives.Ints;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.sps.MeetingRequest;
+import com.google.sps.MeetingScheduler;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Places an array of meeting requests together so that nobody is in two of them at once, e.g. the
+ * sessions of an interview loop. Answers with the time of each request in the same order, null for
+ * the ones that could not be placed, and whether the search ran out of time. The optional
+ * {@code budgetMillis} parameter bounds the search, up to ten seconds.
+ */
+@WebServlet("/schedule")
+public class ScheduleServlet extends HttpServlet {
+  private static final int DEFAULT_BUDGET_MILLIS = 1000;
+  private static final int MAX_BUDGET_MILLIS = 10_000;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    int budgetMillis = DEFAULT_BUDGET_MILLIS;
+    String budgetParameter = request.getParameter("budgetMillis");
+    if (budgetParameter != null) {
+      Integer budget = Ints.tryParse(budgetParameter);
+      if (budget == null || budget < 0 || budget > MAX_BUDGET_MILLIS) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+            "budgetMillis must be an integer from 0 to " + MAX_BUDGET_MILLIS);
+        return;
+      }
+      budgetMillis = budget;
+    }
+
+    // Convert the JSON to an array of MeetingRequests.
+    MeetingRequest[] meetingRequests = gson.fromJson(request.getReader(), MeetingRequest[].class);
+    if (meetingRequests == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "expected an array of requests");
+      return;
+    }
+    for (int i = 0; i < meetingRequests.length; i++) {
+      if (meetingRequests[i] == null) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "request " + i + " is null");
+        return;
+      }
+    }
+
+    MeetingScheduler scheduler =
+        new MeetingScheduler(CalendarState.eventStore.snapshot().getBusyIndex());
+    MeetingScheduler.Plan plan =
+        scheduler.schedule(Arrays.asList(meetingRequests), budgetMillis, TimeUnit.MILLISECONDS);
+
+    JsonObject json = new JsonObject();
+    json.add("times", gson.toJsonTree(plan.getTimes()));
+    json.addProperty("complete", plan.isComplete());
+    json.addProperty("timedOut", plan.isTimedOut());
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(json);
+  }
+}
@@ -31,12 +31,23 @@ function sendMeetingRequest() {
   // split it into an array of names
   const optionalAttendees = optionalAttendeesNamesString.split(/\s*,\s*/)
 
+  // whether to look for the times the most optional attendees can make
+  const maximizeOptionalAttendees = document.getElementById(
+    "maximize-optional-attendees"
+  ).checked
+
+  // how many of the least busy times to suggest if nothing works for everybody
+  const leastConflictSlots =
+    Number(document.getElementById("least-conflict-slots").value) || 0
+
   // Create the request to send to the server using the data we collected from
   // the web form.
   const meetingRequest = new MeetingRequest(
     duration,
     attendees,
-    optionalAttendees
+    optionalAttendees,
+    maximizeOptionalAttendees,
+    leastConflictSlots
   )
 
   queryServer(meetingRequest).then((timeRanges) => {
@@ -102,10 +113,18 @@ function timeToString(totalMinutes) {
  * Request for possible meeting times.
  */
 class MeetingRequest {
-  constructor(duration, attendees, optional_attendees) {
+  constructor(
+    duration,
+    attendees,
+    optional_attendees,
+    maximize_optional_attendees,
+    least_conflict_slots
+  ) {
     this.duration = duration
     this.attendees = attendees
     this.optional_attendees = optional_attendees
+    this.maximize_optional_attendees = maximize_optional_attendees
+    this.least_conflict_slots = least_conflict_slots
   }
 }
 
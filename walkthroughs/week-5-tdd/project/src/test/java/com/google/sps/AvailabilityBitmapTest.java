@@ -0,0 +1,58 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AvailabilityBitmapTest {
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  @Test
+  public void byteArrayHasOneBitPerMinute() {
+    byte[] bytes = AvailabilityBitmap.of(IntervalSet.of(3, 10)).toByteArray();
+
+    Assert.assertEquals(AvailabilityBitmap.BYTES_PER_DAY, bytes.length);
+    // Minutes 3 to 7 are the top five bits of the first byte, 8 and 9 the bottom two of the next.
+    Assert.assertEquals((byte) 0b11111000, bytes[0]);
+    Assert.assertEquals((byte) 0b00000011, bytes[1]);
+    for (int i = 2; i < bytes.length; i++) {
+      Assert.assertEquals(0, bytes[i]);
+    }
+  }
+
+  @Test
+  public void byteArrayRoundTrips() {
+    IntervalSet busy = new IntervalSet.Builder()
+        .add(TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false))
+        .add(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true))
+        .build();
+
+    AvailabilityBitmap decoded =
+        AvailabilityBitmap.fromByteArray(AvailabilityBitmap.of(busy).toByteArray());
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false)),
+        decoded.findFreeRanges(1));
+  }
+}
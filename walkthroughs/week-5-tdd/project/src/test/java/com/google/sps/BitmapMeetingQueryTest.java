@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BitmapMeetingQueryTest {
+  private static final Collection<Event> NO_EVENTS = Collections.emptySet();
+  private static final Collection<String> NO_ATTENDEES = Collections.emptySet();
+
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  @Test
+  public void optionsForNoAttendees() {
+    BitmapMeetingQuery query = new BitmapMeetingQuery(NO_EVENTS);
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_1_HOUR);
+
+    Collection<TimeRange> actual = query.query(request);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noOptionsForTooLongOfARequest() {
+    BitmapMeetingQuery query = new BitmapMeetingQuery(NO_EVENTS);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A), TimeRange.WHOLE_DAY.duration() + 1);
+
+    Assert.assertEquals(Arrays.asList(), query.query(request));
+  }
+
+  @Test
+  public void rangesCrossingWordBoundariesAreMerged() {
+    // Minute 64 is the first minute of the second word. Overlapping events on both sides of it
+    // should produce one busy block.
+    //
+    // Events  : |--A--|
+    //              |--B--|
+    // Day     : |-------------------|
+    // Options :          |----1----|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(0, 70, false), Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(60, 130, false), Arrays.asList(PERSON_B)));
+    BitmapMeetingQuery query = new BitmapMeetingQuery(events);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(130, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeWithNoGapsIsIgnored() {
+    // Events  :       |--A--|
+    //           |-------------C-------------|
+    // Day     : |---------------------------|
+    // Options : |--1--|     |------2--------|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+    BitmapMeetingQuery query = new BitmapMeetingQuery(events);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.query(request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void matchesFindMeetingQueryOnSampleEvents() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    BitmapMeetingQuery bitmapQuery = new BitmapMeetingQuery(events);
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList("Amelia", "Isabella", "James"), DURATION_30_MINUTES);
+    request.addOptionalAttendee("Logan");
+
+    Assert.assertEquals(findMeetingQuery.query(events, request), bitmapQuery.query(request));
+  }
+}
@@ -0,0 +1,213 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BusyIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void overlappingEventsAreMerged() {
+    // Events  : |--A--|
+    //               |--A--|
+    // Busy    : |---------|
+    BusyIndex index = new BusyIndex(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A))));
+
+    Collection<TimeRange> actual = index.getBusyIntervals(PERSON_A).toTimeRanges();
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0930AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void removingOneOfTwoOverlappingEventsKeepsTheOther() {
+    Event first = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    Event second = new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+        Arrays.asList(PERSON_A));
+
+    BusyIndex index = new BusyIndex();
+    index.add(first);
+    index.add(second);
+    index.remove(first);
+
+    Collection<TimeRange> actual = index.getBusyIntervals(PERSON_A).toTimeRanges();
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void groupBusyRangesOnlyIncludeRequestedAttendees() {
+    BusyIndex index = new BusyIndex(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_C))));
+
+    Collection<TimeRange> actual =
+        index.findBusyIntervals(Arrays.asList(PERSON_A, PERSON_B)).toTimeRanges();
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void snapshotIsNotAffectedByLaterChanges() {
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+
+    BusyIndex index = new BusyIndex();
+    BusyIndex snapshot = index.snapshot();
+    index.add(event);
+
+    Assert.assertTrue(snapshot.getBusyIntervals(PERSON_A).isEmpty());
+    Assert.assertEquals(Arrays.asList(event.getWhen()),
+        index.snapshot().getBusyIntervals(PERSON_A).toTimeRanges());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void snapshotCannotBeModified() {
+    new BusyIndex().snapshot().add(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A)));
+  }
+
+  @Test
+  public void queryMatchesEventScanOnSampleEvents() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    BusyIndex index = new BusyIndex(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList("Emma", "Liam", "Noah"), DURATION_30_MINUTES);
+    request.addOptionalAttendee("Oliver");
+
+    Assert.assertEquals(query.query(events, request), query.query(index, request));
+  }
+
+  @Test
+  public void materializedGroupStaysUpToDate() {
+    Event first = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    Event second = new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+        Arrays.asList(PERSON_B, PERSON_C));
+
+    HotGroupTracker tracker = new HotGroupTracker(1, 1);
+    BusyIndex index = new BusyIndex(Arrays.asList(first));
+    index.setHotGroupTracker(tracker);
+    index.materialize(Arrays.asList(PERSON_A, PERSON_B));
+
+    index.add(second);
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0930AM, false)),
+        index.findBusyIntervals(Arrays.asList(PERSON_B, PERSON_A)).toTimeRanges());
+
+    index.remove(first);
+    Assert.assertEquals(Arrays.asList(second.getWhen()),
+        index.snapshot().findBusyIntervals(Arrays.asList(PERSON_A, PERSON_B)).toTimeRanges());
+
+    Assert.assertEquals(2, tracker.getFastPathLookups());
+    Assert.assertEquals(0, tracker.getSlowPathLookups());
+  }
+
+  @Test
+  public void frequentGroupsArePromoted() {
+    HotGroupTracker tracker = new HotGroupTracker(3, 1);
+    List<Collection<String>> promoted = new ArrayList<>();
+    tracker.setPromotionListener(promoted::add);
+
+    BusyIndex index = new BusyIndex();
+    index.setHotGroupTracker(tracker);
+    for (int i = 0; i < 3; i++) {
+      index.findBusyIntervals(Arrays.asList(PERSON_A, PERSON_B));
+      index.findBusyIntervals(Arrays.asList(PERSON_B, PERSON_C));
+    }
+
+    // Only one group may be hot, and A and B got to three lookups first.
+    Assert.assertEquals(Arrays.asList(ImmutableSortedSet.of(PERSON_A, PERSON_B)), promoted);
+    Assert.assertEquals(1, tracker.getHotGroupCount());
+  }
+
+  @Test
+  public void groupThatBecomesHotLaterReplacesOneThatWentCold() {
+    HotGroupTracker tracker = new HotGroupTracker(3, 1);
+    List<Collection<String>> promoted = new ArrayList<>();
+    List<Collection<String>> demoted = new ArrayList<>();
+    tracker.setPromotionListener(promoted::add);
+    tracker.setDemotionListener(demoted::add);
+
+    BusyIndex index = new BusyIndex();
+    index.setHotGroupTracker(tracker);
+    for (int i = 0; i < 100; i++) {
+      index.findBusyIntervals(Arrays.asList(PERSON_A, PERSON_B));
+    }
+    for (int i = 0; i < 100; i++) {
+      index.findBusyIntervals(Arrays.asList(PERSON_B, PERSON_C));
+    }
+
+    Assert.assertEquals(Arrays.asList(ImmutableSortedSet.of(PERSON_A, PERSON_B),
+        ImmutableSortedSet.of(PERSON_B, PERSON_C)), promoted);
+    Assert.assertEquals(Arrays.asList(ImmutableSortedSet.of(PERSON_A, PERSON_B)), demoted);
+    Assert.assertEquals(1, tracker.getHotGroupCount());
+  }
+
+  @Test
+  public void lookupsThatAreNotSampledAreNotCountedTowardsTheirGroup() {
+    // Samples about one lookup in two billion, so none of these.
+    HotGroupTracker tracker = new HotGroupTracker(1, 1, Integer.MAX_VALUE);
+    List<Collection<String>> promoted = new ArrayList<>();
+    tracker.setPromotionListener(promoted::add);
+
+    BusyIndex index = new BusyIndex();
+    index.setHotGroupTracker(tracker);
+    for (int i = 0; i < 10; i++) {
+      index.findBusyIntervals(Arrays.asList(PERSON_A, PERSON_B));
+    }
+
+    Assert.assertEquals(10, tracker.getSlowPathLookups());
+    Assert.assertTrue(promoted.isEmpty());
+    Assert.assertEquals(0, tracker.getHotGroupCount());
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CachedMeetingQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final Event EVENT_A = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A));
+
+  @Test
+  public void repeatedRequestIsAHitRegardlessOfAttendeeOrder() {
+    EventStore store = new EventStore();
+    CachedMeetingQuery query = new CachedMeetingQuery(store, 10);
+
+    query.query(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES));
+    query.query(new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), DURATION_30_MINUTES));
+
+    Assert.assertEquals(1, query.stats().hitCount());
+    Assert.assertEquals(1, query.stats().missCount());
+  }
+
+  @Test
+  public void addingAnEventUpdatesTheAnswer() {
+    EventStore store = new EventStore();
+    CachedMeetingQuery query = new CachedMeetingQuery(store, 10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    query.query(request);
+    store.add(EVENT_A);
+    Collection<TimeRange> actual = query.query(request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(0, query.stats().hitCount());
+  }
+
+  @Test
+  public void changesOnlyInvalidateRequestsMentioningTheirAttendees() {
+    EventStore store = new EventStore();
+    CachedMeetingQuery query = new CachedMeetingQuery(store, 10);
+    MeetingRequest withA = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    withA.addOptionalAttendee(PERSON_A);
+    MeetingRequest withoutA = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+
+    query.query(withA);
+    query.query(withoutA);
+    store.add(EVENT_A);
+
+    Assert.assertEquals(1, query.size());
+    query.query(withoutA);
+    Assert.assertEquals(1, query.stats().hitCount());
+  }
+
+  @Test
+  public void changesToManyAttendeesAreNotAllRemembered() {
+    EventStore store = new EventStore();
+    CachedMeetingQuery query = new CachedMeetingQuery(store, 10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    query.query(request);
+
+    for (int i = 0; i < 5000; i++) {
+      store.add(new Event("Event " + i, TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+          Arrays.asList("Person " + i)));
+    }
+    store.add(EVENT_A);
+    Collection<TimeRange> actual = query.query(request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertTrue(query.trackedChangeCount() <= 1024);
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void staleAnswerCountsAsAMiss() {
+    EventStore store = new EventStore();
+    CachedMeetingQuery query = new CachedMeetingQuery(store, 10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    query.query(request);
+
+    // Enough changes to other people that the cache stops trusting answers from before them.
+    for (int i = 0; i < 5000; i++) {
+      store.add(new Event("Event " + i, TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+          Arrays.asList("Person " + i)));
+    }
+    query.query(request);
+
+    Assert.assertEquals(0, query.stats().hitCount());
+    Assert.assertEquals(2, query.stats().missCount());
+  }
+
+  @Test
+  public void leastRecentlyUsedAnswerIsEvicted() {
+    EventStore store = new EventStore();
+    CachedMeetingQuery query = new CachedMeetingQuery(store, 2);
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest third = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+
+    query.query(first);
+    query.query(second);
+    query.query(first);
+    query.query(third);
+
+    Assert.assertEquals(1, query.stats().evictionCount());
+    query.query(first);
+    Assert.assertEquals(2, query.stats().hitCount());
+  }
+}
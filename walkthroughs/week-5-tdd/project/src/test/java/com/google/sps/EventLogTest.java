@@ -0,0 +1,114 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventLogTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final Event EVENT_1 = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A, PERSON_B));
+  private static final Event EVENT_2 = new Event("Event 2",
+      TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(PERSON_B));
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void changesSurviveReopening() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.log");
+
+    try (EventLog log = EventLog.open(path)) {
+      EventStore store = new EventStore(log);
+      store.add(EVENT_1);
+      store.add(EVENT_2);
+      store.add(EVENT_1);
+      store.remove(EVENT_1);
+    }
+
+    try (EventLog log = EventLog.open(path)) {
+      Assert.assertEquals(Arrays.asList(EVENT_2, EVENT_1), log.getReplayedEvents());
+    }
+  }
+
+  @Test
+  public void eventWithManyAttendeesSurvivesReopening() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.log");
+    List<String> attendees = new ArrayList<>();
+    for (int i = 0; i <= Short.MAX_VALUE; i++) {
+      attendees.add("Person " + i);
+    }
+    Event event = new Event("All hands",
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), attendees);
+
+    try (EventLog log = EventLog.open(path)) {
+      log.appendAdd(event);
+    }
+
+    try (EventLog log = EventLog.open(path)) {
+      Assert.assertEquals(Arrays.asList(event), log.getReplayedEvents());
+    }
+  }
+
+  @Test
+  public void recordCutShortIsDropped() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.log");
+    try (EventLog log = EventLog.open(path)) {
+      log.appendAdd(EVENT_1);
+      log.appendAdd(EVENT_2);
+    }
+
+    // Lose the last byte, as if the process had died in the middle of the second append.
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 1);
+    }
+
+    try (EventLog log = EventLog.open(path)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1), log.getReplayedEvents());
+      log.appendAdd(EVENT_2);
+    }
+    try (EventLog log = EventLog.open(path)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), log.getReplayedEvents());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void otherFilesAreRejected() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("not-a-log.txt");
+    Files.write(path, Arrays.asList("hello"));
+
+    EventLog.open(path);
+  }
+}
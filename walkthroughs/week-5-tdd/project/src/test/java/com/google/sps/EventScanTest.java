@@ -0,0 +1,78 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventScanTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int[] NO_ATTENDEES = new int[0];
+
+  @Test
+  public void noEvents() {
+    Assert.assertEquals(IntervalSet.empty(),
+        EventScan.findBusyIntervalsSequential(Collections.emptyList(), NO_ATTENDEES));
+    Assert.assertEquals(IntervalSet.empty(),
+        EventScan.findBusyIntervalsParallel(Collections.emptyList(), NO_ATTENDEES));
+  }
+
+  @Test
+  public void onlyEventsWithTheAttendeesCount() {
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(60, 120, false), Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(90, 180, false), Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(300, 360, false), Arrays.asList(PERSON_C)));
+    int[] attendeeIds = AttendeeRegistry.getInstance().internAll(Arrays.asList(PERSON_A, PERSON_B));
+
+    IntervalSet expected = IntervalSet.of(60, 180);
+    Assert.assertEquals(expected, EventScan.findBusyIntervalsSequential(events, attendeeIds));
+    Assert.assertEquals(expected, EventScan.findBusyIntervalsParallel(events, attendeeIds));
+  }
+
+  @Test
+  public void parallelMatchesSequentialAcrossChunks() {
+    Random random = new Random(2020);
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      people.add("Scan person " + i);
+    }
+
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < EventScan.PARALLEL_THRESHOLD * 2; i++) {
+      int start = random.nextInt(TimeRange.END_OF_DAY);
+      int duration = 1 + random.nextInt(Math.min(60, TimeRange.END_OF_DAY + 1 - start));
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          Arrays.asList(people.get(random.nextInt(people.size())),
+              people.get(random.nextInt(people.size())))));
+    }
+    int[] attendeeIds = AttendeeRegistry.getInstance().internAll(people.subList(0, 5));
+
+    Assert.assertEquals(EventScan.findBusyIntervalsSequential(events, attendeeIds),
+        EventScan.findBusyIntervalsParallel(events, attendeeIds));
+  }
+}
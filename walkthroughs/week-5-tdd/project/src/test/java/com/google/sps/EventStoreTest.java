@@ -0,0 +1,127 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final Event EVENT_A = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A));
+  private static final Event EVENT_B = new Event("Event 2",
+      TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false), Arrays.asList(PERSON_B));
+
+  @Test
+  public void snapshotsDoNotSeeLaterChanges() {
+    EventStore store = new EventStore();
+    EventStore.Snapshot before = store.snapshot();
+
+    store.add(EVENT_A);
+    EventStore.Snapshot after = store.snapshot();
+
+    Assert.assertTrue(before.getEvents().isEmpty());
+    Assert.assertTrue(before.getBusyIndex().getBusyIntervals(PERSON_A).isEmpty());
+    Assert.assertEquals(Arrays.asList(EVENT_A), after.getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_A.getWhen()),
+        after.getBusyIndex().getBusyIntervals(PERSON_A).toTimeRanges());
+    Assert.assertTrue(after.getVersion() > before.getVersion());
+  }
+
+  @Test
+  public void removeOnlyReportsEventsThatWereThere() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_A));
+
+    Assert.assertTrue(store.remove(EVENT_A));
+    Assert.assertFalse(store.remove(EVENT_A));
+    Assert.assertTrue(store.snapshot().getBusyIndex().getBusyIntervals(PERSON_A).isEmpty());
+  }
+
+  @Test
+  public void listenersSeeTheSnapshotWithTheChange() {
+    EventStore store = new EventStore();
+    List<EventStore.Snapshot> seen = new ArrayList<>();
+    store.addChangeListener((event, snapshot) -> seen.add(snapshot));
+
+    store.add(EVENT_A);
+
+    Assert.assertEquals(Arrays.asList(store.snapshot()), seen);
+  }
+
+  @Test
+  public void addAllPublishesOneSnapshot() {
+    EventStore store = new EventStore();
+    long before = store.snapshot().getVersion();
+    List<Event> changed = new ArrayList<>();
+    List<EventStore.Snapshot> seen = new ArrayList<>();
+    store.addChangeListener((event, snapshot) -> {
+      changed.add(event);
+      seen.add(snapshot);
+    });
+
+    store.addAll(Arrays.asList(EVENT_A, EVENT_B));
+
+    Assert.assertEquals(before + 1, store.snapshot().getVersion());
+    Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), store.snapshot().getEvents());
+    Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), changed);
+    Assert.assertEquals(Arrays.asList(store.snapshot(), store.snapshot()), seen);
+    Assert.assertEquals(Arrays.asList(EVENT_A.getWhen()),
+        store.snapshot().getBusyIndex().getBusyIntervals(PERSON_A).toTimeRanges());
+  }
+
+  @Test
+  public void findOverlappingFollowsChanges() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_A));
+    store.add(EVENT_B);
+
+    Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), store.snapshot().findOverlapping(
+        TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false)));
+    // Ranges are half-open, so an event ending at 9:00 is not busy at 9:00.
+    Assert.assertEquals(Arrays.asList(EVENT_B), store.snapshot().findOverlapping(
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)));
+
+    store.remove(EVENT_A);
+
+    Assert.assertEquals(Arrays.asList(EVENT_B), store.snapshot().findOverlapping(
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false)));
+  }
+
+  @Test
+  public void emptyWindowFindsTheEventsGoingOnAtItsStart() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_A, EVENT_B));
+
+    // Includes the event that starts right then, but not the one that just ended.
+    Assert.assertEquals(Arrays.asList(EVENT_A, EVENT_B), store.snapshot().findOverlapping(
+        TimeRange.fromStartDuration(TIME_0830AM, 0)));
+    Assert.assertEquals(Arrays.asList(EVENT_B), store.snapshot().findOverlapping(
+        TimeRange.fromStartDuration(TIME_0900AM, 0)));
+    Assert.assertEquals(Arrays.asList(), store.snapshot().findOverlapping(
+        TimeRange.fromStartDuration(TIME_1000AM, 0)));
+  }
+}
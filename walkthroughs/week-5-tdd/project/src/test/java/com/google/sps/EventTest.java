@@ -0,0 +1,59 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final TimeRange RANGE = TimeRange.fromStartDuration(100, 50);
+
+  @Test
+  public void attendeeNamesRoundTrip() {
+    Event event = new Event("Event 1", RANGE, Arrays.asList(PERSON_A, PERSON_B, PERSON_A));
+
+    Assert.assertEquals(ImmutableSet.of(PERSON_A, PERSON_B), event.getAttendees());
+    Assert.assertEquals(2, event.getAttendeeCount());
+  }
+
+  @Test
+  public void equalityIgnoresAttendeeOrder() {
+    Assert.assertEquals(new Event("Event 1", RANGE, Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 1", RANGE, Arrays.asList(PERSON_B, PERSON_A)));
+
+    Assert.assertNotEquals(new Event("Event 1", RANGE, Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 1", RANGE, Arrays.asList(PERSON_A, PERSON_C)));
+  }
+
+  @Test
+  public void hasAnyAttendee() {
+    Event event = new Event("Event 1", RANGE, Arrays.asList(PERSON_A, PERSON_C));
+    AttendeeRegistry registry = AttendeeRegistry.getInstance();
+
+    Assert.assertTrue(event.hasAnyAttendee(registry.internAll(Arrays.asList(PERSON_B, PERSON_C))));
+    Assert.assertFalse(event.hasAnyAttendee(registry.internAll(Arrays.asList(PERSON_B))));
+    Assert.assertFalse(event.hasAnyAttendee(new int[0]));
+  }
+}
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import org.junit.Assert;
 import org.junit.Before;
@@ -414,5 +415,190 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void mostOptionalAttendeesChosen() {
+    // Each optional attendee is busy at some point, so there is never a time all of them can come.
+    // Only the gap where all three are free should be returned.
+    //
+    // Events  : |--A--|
+    //         : |---B---|
+    //         :             |------C------|
+    // Day     : |-----------------------------|
+    // Options :         |-1-|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.setMaximizeOptionalAttendees(true);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void mostOptionalAttendeesRespectsMandatoryAttendees() {
+    // A is mandatory. After A's event only C is free for a short while, and nobody optional is
+    // free after that. The short gap where C can come should be returned.
+    //
+    // Events  : |----A----|
+    //         :           |--------B--------|
+    //         :               |------C------|
+    // Day     : |---------------------------|
+    // Options :           |-1-|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.setMaximizeOptionalAttendees(true);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void mostOptionalAttendeesMatchesAllOrNothingWhenEveryoneFits() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+    Collection<TimeRange> expected = query.query(events, request);
+
+    request.setMaximizeOptionalAttendees(true);
+    Collection<TimeRange> actual = query.query(events, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void iterateMatchesQuery() {
+    // Optional attendee C is busy all afternoon but there is still room for everybody in the
+    // morning, so the iterator has to merge all three attendees' events.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<TimeRange> actual = new ArrayList<>();
+    query.iterate(new BusyIndex(events), request).forEachRemaining(actual::add);
+    Collection<TimeRange> expected = query.query(events, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void iterateFallsBackToMandatoryAttendees() {
+    // Optional attendee B is busy all day, so only A's free time counts.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Iterator<TimeRange> actual = query.iterate(new BusyIndex(events), request);
+
+    Assert.assertEquals(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+        actual.next());
+    Assert.assertEquals(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+        actual.next());
+    Assert.assertFalse(actual.hasNext());
+  }
+
+  @Test
+  public void leastConflictSlotsWhenNobodyFitsEveryone() {
+    // A and B never share a free hour. The hours where only one of them is busy come first, in
+    // order of start time, then the earliest hour where both are.
+    //
+    // Events  : |-------A-------|
+    //         :           |-------B-------|
+    // Day     : |-----------------------------|
+    // Slots   : 1: 0:00 (A), 2: 9:30 (B), 3: 7:31 (A and B)
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0930AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR);
+    request.setLeastConflictSlots(3);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TimeRange.START_OF_DAY, DURATION_1_HOUR),
+            TimeRange.fromStartDuration(TIME_0930AM, DURATION_1_HOUR),
+            TimeRange.fromStartDuration(TIME_0830AM - DURATION_1_HOUR + 1, DURATION_1_HOUR));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void leastConflictSlotsOnlyUsedWhenNothingIsFree() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    Collection<TimeRange> expected = query.query(events, request);
+
+    request.setLeastConflictSlots(3);
+    Collection<TimeRange> actual = query.query(events, request);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void leastConflictSlotsStopAtTheDistinctCandidates() {
+    // A is busy all day, so the only candidate is midnight, however many slots are asked for.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setLeastConflictSlots(MeetingRequest.MAX_LEAST_CONFLICT_SLOTS);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TimeRange.START_OF_DAY, DURATION_1_HOUR));
+
+    Assert.assertEquals(expected, actual);
+  }
+}
@@ -0,0 +1,226 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IcsImporterTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  // 2020-01-06, a Monday.
+  private static final long MONDAY = 18267;
+  private static final long TUESDAY = MONDAY + 1;
+  private static final long WEDNESDAY = MONDAY + 2;
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100PM = TimeRange.getTimeInMinutes(23, 0);
+
+  private static InputStream ics(String... lines) {
+    StringBuilder file = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n");
+    for (String line : lines) {
+      file.append(line).append("\r\n");
+    }
+    file.append("END:VCALENDAR\r\n");
+    return new ByteArrayInputStream(file.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<IcsImporter.ImportedEvent> importAll(ZoneId zone, InputStream in)
+      throws IOException {
+    List<IcsImporter.ImportedEvent> imported = new ArrayList<>();
+    new IcsImporter(zone, IcsImporter.DEFAULT_BATCH_SIZE).importEvents(in, imported::addAll);
+    return imported;
+  }
+
+  @Test
+  public void readsEventsInBatches() throws IOException {
+    InputStream in = ics(
+        "BEGIN:VEVENT",
+        "SUMMARY:Planning\\, part one",
+        "DTSTART:20200106T090000Z",
+        "DTEND:20200106T100000Z",
+        "ORGANIZER;CN=\"Person A\":mailto:a@example.com",
+        "ATTENDEE;PARTSTAT=ACCEPTED:mailto:b@exam",
+        " ple.com",
+        "ATTENDEE;CN=Person C;PARTSTAT=DECLINED:mailto:c@example.com",
+        "BEGIN:VALARM",
+        "DTSTART:19700101T000000Z",
+        "END:VALARM",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "DTSTART:20200107T090000Z",
+        "DURATION:PT1H",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "DTSTART;VALUE=DATE:20200108",
+        "END:VEVENT");
+
+    List<Integer> batchSizes = new ArrayList<>();
+    List<IcsImporter.ImportedEvent> imported = new ArrayList<>();
+    IcsImporter.Result result = new IcsImporter(ZoneOffset.UTC, 2).importEvents(in, batch -> {
+      batchSizes.add(batch.size());
+      imported.addAll(batch);
+    });
+
+    Assert.assertEquals(3, result.getImportedCount());
+    Assert.assertEquals(0, result.getSkippedCount());
+    Assert.assertEquals(Arrays.asList(2, 1), batchSizes);
+
+    Event planning = imported.get(0).getEvent();
+    Assert.assertEquals("Planning, part one", planning.getTitle());
+    Assert.assertEquals(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), planning.getWhen());
+    Assert.assertEquals(ImmutableSet.of(PERSON_A, "b@example.com"), planning.getAttendees());
+    Assert.assertEquals(MONDAY, imported.get(0).getEpochDay());
+
+    Assert.assertEquals(TUESDAY, imported.get(1).getEpochDay());
+    Assert.assertEquals(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        imported.get(1).getEvent().getWhen());
+
+    Assert.assertEquals(WEDNESDAY, imported.get(2).getEpochDay());
+    Assert.assertEquals(TimeRange.WHOLE_DAY, imported.get(2).getEvent().getWhen());
+  }
+
+  @Test
+  public void convertsZonesAndSplitsAtMidnight() throws IOException {
+    // 4:00 to 6:00 UTC on Tuesday is 23:00 Monday to 1:00 Tuesday in New York.
+    List<IcsImporter.ImportedEvent> imported = importAll(ZoneId.of("America/New_York"), ics(
+        "BEGIN:VEVENT",
+        "DTSTART;TZID=Europe/London:20200107T040000",
+        "DTEND:20200107T060000Z",
+        "ATTENDEE;CN=Person A:mailto:a@example.com",
+        "END:VEVENT"));
+
+    Assert.assertEquals(2, imported.size());
+    Assert.assertEquals(MONDAY, imported.get(0).getEpochDay());
+    Assert.assertEquals(TimeRange.fromStartEnd(TIME_1100PM, TimeRange.END_OF_DAY, true),
+        imported.get(0).getEvent().getWhen());
+    Assert.assertEquals(TUESDAY, imported.get(1).getEpochDay());
+    Assert.assertEquals(TimeRange.fromStartDuration(TimeRange.START_OF_DAY, 60),
+        imported.get(1).getEvent().getWhen());
+  }
+
+  @Test
+  public void weeklyRuleBecomesOneSeriesPerDay() throws IOException {
+    // Mondays and Wednesdays, three times: Monday, Wednesday and the next Monday.
+    List<IcsImporter.ImportedEvent> imported = importAll(ZoneOffset.UTC, ics(
+        "BEGIN:VEVENT",
+        "DTSTART:20200106T090000",
+        "DTEND:20200106T100000",
+        "RRULE:FREQ=WEEKLY;BYDAY=MO,WE;COUNT=3",
+        "ATTENDEE;CN=Person B:mailto:b@example.com",
+        "END:VEVENT"));
+
+    Assert.assertEquals(2, imported.size());
+    Assert.assertEquals(Recurrence.weekly(MONDAY, MONDAY + 7, 1), imported.get(0).getRecurrence());
+    Assert.assertEquals(Recurrence.weekly(WEDNESDAY, MONDAY + 7, 1), imported.get(1).getRecurrence());
+
+    MultiDayMeetingQuery query = new MultiDayMeetingQuery();
+    for (IcsImporter.ImportedEvent event : imported) {
+      event.addTo(query);
+    }
+    // Three busy hours over two weeks leave four free ranges.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), 60);
+    Assert.assertEquals(4, query.query(request, EpochRange.fromDays(MONDAY, MONDAY + 13)).size());
+  }
+
+  @Test
+  public void skipsEventsThatDoNotMakeAnyoneBusy() throws IOException {
+    IcsImporter.Result result = new IcsImporter(ZoneOffset.UTC, IcsImporter.DEFAULT_BATCH_SIZE)
+        .importInto(ics(
+            "BEGIN:VEVENT",
+            "DTSTART:20200106T090000Z",
+            "DTEND:20200106T100000Z",
+            "STATUS:CANCELLED",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "DTSTART;VALUE=DATE:20200106",
+            "TRANSP:TRANSPARENT",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "DTSTART:20200106T090000Z",
+            "DTEND:20200106T100000Z",
+            "RRULE:FREQ=MONTHLY;BYMONTHDAY=6",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "DTSTART:not a date",
+            "END:VEVENT"), new MultiDayMeetingQuery());
+
+    Assert.assertEquals(0, result.getImportedCount());
+    Assert.assertEquals(4, result.getSkippedCount());
+  }
+
+  @Test
+  public void skipsRulesWithoutAPositiveCountOrInterval() throws IOException {
+    IcsImporter.Result result = new IcsImporter(ZoneOffset.UTC, IcsImporter.DEFAULT_BATCH_SIZE)
+        .importInto(ics(
+            "BEGIN:VEVENT",
+            "DTSTART:20200106T090000Z",
+            "DTEND:20200106T100000Z",
+            "RRULE:FREQ=DAILY;COUNT=0",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "DTSTART:20200106T090000Z",
+            "DTEND:20200106T100000Z",
+            "RRULE:FREQ=WEEKLY;COUNT=-3",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "DTSTART:20200106T090000Z",
+            "DTEND:20200106T100000Z",
+            "RRULE:FREQ=DAILY;INTERVAL=0",
+            "END:VEVENT"), new MultiDayMeetingQuery());
+
+    Assert.assertEquals(0, result.getImportedCount());
+    Assert.assertEquals(3, result.getSkippedCount());
+  }
+
+  @Test
+  public void skipsEventsSpanningTooManyDays() throws IOException {
+    List<IcsImporter.ImportedEvent> imported = new ArrayList<>();
+    IcsImporter.Result result = new IcsImporter(ZoneOffset.UTC, IcsImporter.DEFAULT_BATCH_SIZE)
+        .importEvents(ics(
+            "BEGIN:VEVENT",
+            "DTSTART:20200106T090000Z",
+            "DTEND:99991231T100000Z",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "DTSTART:20200106T090000Z",
+            "DURATION:P99999999999999999999D",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "DTSTART:20200106T090000Z",
+            "DURATION:P2D",
+            "END:VEVENT"), imported::addAll);
+
+    Assert.assertEquals(1, result.getImportedCount());
+    Assert.assertEquals(2, result.getSkippedCount());
+    Assert.assertEquals(3, imported.size());
+  }
+}
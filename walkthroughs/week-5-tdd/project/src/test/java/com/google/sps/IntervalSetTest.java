@@ -0,0 +1,89 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalSetTest {
+
+  private static IntervalSet set(int... startsAndEnds) {
+    IntervalSet.Builder builder = new IntervalSet.Builder();
+    for (int i = 0; i < startsAndEnds.length; i += 2) {
+      builder.add(startsAndEnds[i], startsAndEnds[i + 1]);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void builderSortsAndMergesOverlappingAndAdjacentIntervals() {
+    IntervalSet actual = set(50, 60, 10, 20, 15, 30, 30, 40, 45, 45);
+
+    Assert.assertEquals(set(10, 40, 50, 60), actual);
+    Assert.assertEquals(2, actual.size());
+  }
+
+  @Test
+  public void union() {
+    IntervalSet actual = set(0, 10, 20, 30, 50, 60).union(set(5, 25, 40, 45));
+
+    Assert.assertEquals(set(0, 30, 40, 45, 50, 60), actual);
+  }
+
+  @Test
+  public void unionAll() {
+    IntervalSet actual = IntervalSet.unionAll(
+        Arrays.asList(set(0, 10), set(100, 110), set(5, 20), set(110, 120), IntervalSet.empty()));
+
+    Assert.assertEquals(set(0, 20, 100, 120), actual);
+  }
+
+  @Test
+  public void intersect() {
+    IntervalSet actual = set(0, 10, 20, 30, 50, 60).intersect(set(5, 25, 55, 100));
+
+    Assert.assertEquals(set(5, 10, 20, 25, 55, 60), actual);
+  }
+
+  @Test
+  public void disjointSetsHaveEmptyIntersection() {
+    Assert.assertTrue(set(0, 10).intersect(set(10, 20)).isEmpty());
+  }
+
+  @Test
+  public void complementWithinDay() {
+    IntervalSet actual = set(0, 60, 120, 180, 1400, 1500).complementWithinDay();
+
+    Assert.assertEquals(set(60, 120, 180, 1400), actual);
+  }
+
+  @Test
+  public void complementOfEmptySetIsWholeDay() {
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY),
+        IntervalSet.empty().complementWithinDay().toTimeRanges());
+  }
+
+  @Test
+  public void filterMinLengthKeepsIntervalsExactlyThatLong() {
+    IntervalSet actual = set(0, 29, 100, 130, 200, 300).filterMinLength(30);
+
+    Assert.assertEquals(set(100, 130, 200, 300), actual);
+  }
+}
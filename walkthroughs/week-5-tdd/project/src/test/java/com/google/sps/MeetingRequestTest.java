@@ -44,4 +44,22 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void leastConflictSlotsMustBeInRange() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setLeastConflictSlots(MeetingRequest.MAX_LEAST_CONFLICT_SLOTS);
+
+    try {
+      request.setLeastConflictSlots(-1);
+      Assert.fail("negative slot count accepted");
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      request.setLeastConflictSlots(Integer.MAX_VALUE);
+      Assert.fail("huge slot count accepted");
+    } catch (IllegalArgumentException expected) {
+    }
+    Assert.assertTrue(request.hasValidLeastConflictSlots());
+  }
+}
@@ -0,0 +1,138 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MeetingSchedulerTest {
+  private static final String CANDIDATE = "Candidate";
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  // The candidate is only free from 9:00 to 12:00.
+  private static final List<Event> CANDIDATE_BUSY = Arrays.asList(
+      new Event("Travel", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+          Arrays.asList(CANDIDATE)),
+      new Event("Travel", TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true),
+          Arrays.asList(CANDIDATE)));
+
+  private static MeetingRequest session(String interviewer) {
+    return new MeetingRequest(Arrays.asList(CANDIDATE, interviewer), DURATION_1_HOUR);
+  }
+
+  @Test
+  public void interviewLoopDoesNotCollide() {
+    // Person B is busy at 9:00, so they must take a later session.
+    List<Event> events = Arrays.asList(CANDIDATE_BUSY.get(0), CANDIDATE_BUSY.get(1),
+        new Event("Standup", TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR),
+            Arrays.asList(PERSON_B)));
+    MeetingScheduler scheduler = new MeetingScheduler(new BusyIndex(events));
+
+    MeetingScheduler.Plan plan = scheduler.schedule(
+        Arrays.asList(session(PERSON_A), session(PERSON_B), session(PERSON_C)), 1, TimeUnit.SECONDS);
+
+    Assert.assertTrue(plan.isComplete());
+    Assert.assertFalse(plan.isTimedOut());
+    List<TimeRange> times = plan.getTimes();
+    Assert.assertNotEquals(TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR), times.get(1));
+    for (int i = 0; i < times.size(); i++) {
+      Assert.assertTrue(TimeRange.fromStartEnd(TIME_0900AM, TIME_1200PM, false)
+          .contains(times.get(i)));
+      for (int j = i + 1; j < times.size(); j++) {
+        Assert.assertFalse(times.get(i).overlaps(times.get(j)));
+      }
+    }
+  }
+
+  @Test
+  public void meetingsWithNobodyInCommonMayOverlap() {
+    MeetingScheduler scheduler = new MeetingScheduler(new BusyIndex());
+
+    MeetingScheduler.Plan plan = scheduler.schedule(Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR),
+        new MeetingRequest(Arrays.asList(PERSON_B), DURATION_1_HOUR)), 1, TimeUnit.SECONDS);
+
+    TimeRange earliest = TimeRange.fromStartDuration(TimeRange.START_OF_DAY, DURATION_1_HOUR);
+    Assert.assertEquals(Arrays.asList(earliest, earliest), plan.getTimes());
+  }
+
+  @Test
+  public void returnsBestPartialPlanWhenNotEverythingFits() {
+    MeetingScheduler scheduler = new MeetingScheduler(new BusyIndex(CANDIDATE_BUSY));
+
+    // Four hours of sessions don't fit into three free hours, and nobody can make a whole day.
+    MeetingScheduler.Plan plan = scheduler.schedule(Arrays.asList(session(PERSON_A),
+        session(PERSON_B), session(PERSON_C), session(PERSON_A),
+        new MeetingRequest(Arrays.asList(PERSON_C), TimeRange.WHOLE_DAY.duration() + 1)),
+        1, TimeUnit.SECONDS);
+
+    Assert.assertFalse(plan.isComplete());
+    Assert.assertFalse(plan.isTimedOut());
+    Assert.assertEquals(3, plan.getScheduledCount());
+    Assert.assertFalse(plan.getTime(4).isPresent());
+  }
+
+  @Test
+  public void stopsWhenTheBudgetRunsOut() {
+    MeetingScheduler scheduler = new MeetingScheduler(new BusyIndex(CANDIDATE_BUSY));
+
+    MeetingScheduler.Plan plan =
+        scheduler.schedule(Arrays.asList(session(PERSON_A)), 0, TimeUnit.SECONDS);
+
+    Assert.assertTrue(plan.isTimedOut());
+    Assert.assertEquals(0, plan.getScheduledCount());
+  }
+
+  @Test
+  public void findsPlansThatNeedAMeetingToStartLaterInItsRange() {
+    // A is free from 9:00 to 10:30 and B from 00:00 to 10:00. Starting the hour-long meeting at
+    // 9:00, the start of its range, leaves no room for the half hour with B.
+    int time1030AM = TimeRange.getTimeInMinutes(10, 30);
+    List<Event> events = Arrays.asList(
+        new Event("Busy", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Busy", TimeRange.fromStartEnd(time1030AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)),
+        new Event("Busy", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+    MeetingScheduler scheduler = new MeetingScheduler(new BusyIndex(events));
+
+    MeetingScheduler.Plan plan = scheduler.schedule(Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR),
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30)), 1, TimeUnit.SECONDS);
+
+    Assert.assertTrue(plan.isComplete());
+    Assert.assertFalse(plan.isTimedOut());
+    Assert.assertEquals(Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0900AM + 30, time1030AM, false),
+        TimeRange.fromStartDuration(TIME_0900AM, 30)), plan.getTimes());
+  }
+}
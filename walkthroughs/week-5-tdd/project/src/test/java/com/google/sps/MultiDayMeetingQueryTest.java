@@ -0,0 +1,181 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MultiDayMeetingQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  // 2020-01-06, a Monday.
+  private static final long MONDAY = 18267;
+  private static final long TUESDAY = MONDAY + 1;
+  private static final long FRIDAY = MONDAY + 4;
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1700PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  private MultiDayMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new MultiDayMeetingQuery();
+  }
+
+  @Test
+  public void firstFreeHourSkipsBusyDays() {
+    // A is busy all of Monday and the morning of Tuesday. The first free hour of the week is right
+    // after that.
+    query.addEvent(MONDAY, new Event("Offsite", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+    query.addEvent(TUESDAY, new Event("Training",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false), Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    Optional<EpochRange> actual = query.findFirst(request, EpochRange.fromDays(MONDAY, FRIDAY));
+
+    EpochRange expected = EpochRange.fromStartDuration(
+        EpochRange.onDay(TUESDAY, TimeRange.WHOLE_DAY).start() + TIME_0900AM, DURATION_1_HOUR);
+    Assert.assertEquals(Optional.of(expected), actual);
+  }
+
+  @Test
+  public void freeRangesSpanMidnight() {
+    // Both people are free from Monday 17:00 until Tuesday 9:00.
+    query.addEvent(MONDAY, new Event("Work",
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1700PM, false), Arrays.asList(PERSON_A)));
+    query.addEvent(TUESDAY, new Event("Work",
+        TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true), Arrays.asList(PERSON_B)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR);
+    Collection<EpochRange> actual = query.query(request, EpochRange.fromDays(MONDAY, TUESDAY));
+
+    Collection<EpochRange> expected =
+        Arrays.asList(EpochRange.fromStartEnd(EpochRange.onDay(MONDAY, TimeRange.WHOLE_DAY).start()
+                + TIME_1700PM,
+            EpochRange.onDay(TUESDAY, TimeRange.WHOLE_DAY).start() + TIME_0900AM));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void removedEventsNoLongerBlock() {
+    Event offsite = new Event("Offsite", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A));
+    query.addEvent(MONDAY, offsite);
+    query.removeEvent(MONDAY, offsite);
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    Collection<EpochRange> actual = query.query(request, EpochRange.fromDays(MONDAY, MONDAY));
+
+    Assert.assertEquals(Arrays.asList(EpochRange.fromDays(MONDAY, MONDAY)), actual);
+  }
+
+  @Test
+  public void intervalTreeFindsSameEntriesAsScan() {
+    // Check the tree against a plain scan over many overlapping ranges, including removals.
+    Random random = new Random(42);
+    IntervalTree<Integer> tree = IntervalTree.empty();
+    List<EpochRange> ranges = new ArrayList<>();
+
+    for (int i = 0; i < 500; i++) {
+      long start = random.nextInt(10000);
+      EpochRange range = EpochRange.fromStartDuration(start, 1 + random.nextInt(300));
+      ranges.add(range);
+      tree = tree.with(range, i);
+    }
+    for (int i = 0; i < 500; i += 3) {
+      tree = tree.without(ranges.get(i), i);
+    }
+
+    for (int query = 0; query < 100; query++) {
+      EpochRange window =
+          EpochRange.fromStartDuration(random.nextInt(10000), 1 + random.nextInt(500));
+
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < ranges.size(); i++) {
+        EpochRange range = ranges.get(i);
+        if (i % 3 != 0 && range.start() < window.end() && window.start() < range.end()) {
+          expected.add(i);
+        }
+      }
+
+      List<Integer> actual = new ArrayList<>();
+      for (IntervalTree.Entry<Integer> entry : tree.findOverlapping(window)) {
+        actual.add(entry.value());
+      }
+
+      expected.sort(null);
+      actual.sort(null);
+      Assert.assertEquals(expected, actual);
+    }
+    Assert.assertEquals(500 - 167, tree.size());
+  }
+
+  @Test
+  public void recurringEventMatchesMaterializedOccurrences() {
+    // The standup runs every day for a year. A second calendar has it stored one day at a time for
+    // the days around the window. Both calendars must give the same answer.
+    Event standup = new Event("Standup",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR), Arrays.asList(PERSON_A));
+    query.addRecurringEvent(Recurrence.daily(MONDAY - 100, MONDAY + 265, 1), standup);
+
+    MultiDayMeetingQuery materialized = new MultiDayMeetingQuery();
+    for (long day = MONDAY - 1; day <= FRIDAY + 1; day++) {
+      materialized.addEvent(day, standup);
+    }
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    EpochRange window = EpochRange.fromStartEnd(
+        EpochRange.onDay(MONDAY, TimeRange.WHOLE_DAY).start() + TIME_0900AM + 30,
+        EpochRange.onDay(FRIDAY, TimeRange.WHOLE_DAY).start() + TIME_1700PM);
+
+    Assert.assertEquals(materialized.query(request, window), query.query(request, window));
+  }
+
+  @Test
+  public void weeklyRecurrenceOnlyBlocksItsWeekday() {
+    // A is busy all day every Tuesday, every other week, until the series ends.
+    Recurrence everyOtherTuesday = Recurrence.weekly(TUESDAY - 14, TUESDAY + 14, 2);
+    Event offsite = new Event("Offsite", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A));
+    query.addRecurringEvent(everyOtherTuesday, offsite);
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    Collection<EpochRange> actual = query.query(request, EpochRange.fromDays(MONDAY, FRIDAY + 7));
+
+    Collection<EpochRange> expected = Arrays.asList(
+        EpochRange.fromDays(MONDAY, MONDAY),
+        EpochRange.fromDays(TUESDAY + 1, FRIDAY + 7));
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(3, everyOtherTuesday.count());
+
+    query.removeRecurringEvent(everyOtherTuesday, offsite);
+    Assert.assertEquals(Arrays.asList(EpochRange.fromDays(MONDAY, FRIDAY + 7)),
+        query.query(request, EpochRange.fromDays(MONDAY, FRIDAY + 7)));
+  }
+}